@@ -0,0 +1,60 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+
+public class BenchmarkCatalog {
+    static final String[] QUERIES = {"море", "ні", "king", "пьюзо", "b0000", "silent winter"};
+    static final String[] SHORT_QUERIES = {"м", "ні", "о ", "b0", "я"};
+    static final int WARM_ENTRIES = 1_000;
+
+    private BenchmarkCatalog() {}
+
+    public static Map<String, IntToLongFunction> operations(int size) {
+        LibraryManager manager = new CatalogGenerator(42).populate(size, 0.2);
+        Repository<Book> books = bookRepository(manager);
+        List<LibraryItem> items = manager.getAllItems();
+        String[] ids = items.stream().map(LibraryItem::getId).toArray(String[]::new);
+        ItemFilter[] filters = ItemFilter.values();
+        QueryCache cache = manager.getQueryCache();
+
+        Map<String, IntToLongFunction> operations = new LinkedHashMap<>();
+        operations.put("repositoryFindById", i -> books.findById(ids[i % ids.length]) == null ? 0 : 1);
+        operations.put("repositorySearch", i -> books.search(QUERIES[i % QUERIES.length]).size());
+        operations.put("repositorySearchShort", i -> books.search(SHORT_QUERIES[i % SHORT_QUERIES.length]).size());
+        operations.put("findById", i -> manager.findById(ids[i % ids.length]).getYear());
+        operations.put("searchAll", i -> {
+            cache.clear();
+            return manager.searchAll(QUERIES[i % QUERIES.length]).size();
+        });
+        operations.put("searchAllCached", i -> manager.searchAll(QUERIES[i % QUERIES.length]).size());
+        operations.put("filterCombo", i -> {
+            cache.clear();
+            return manager.searchAll("", filters[i % filters.length]).size();
+        });
+        operations.put("findAll", i -> manager.findAll(item ->
+                item instanceof DVD dvd && dvd.getYear() >= 1990 && dvd.getYear() <= 2000 && dvd.getDuration() > 120).size());
+        operations.put("query", i -> manager.query(LibraryQuery.all().text("о")
+                .between(LibraryQuery.Field.YEAR, 1960, 2020)).size());
+        operations.put("getAllItems", i -> manager.getAllItems().size());
+        operations.put("getBookCount", i -> manager.getBookCount());
+        // An edit with a full query cache: every cached entry is checked for invalidation
+        // under the write lock, and none of these queries matches the edited item.
+        operations.put("editWithWarmCache", i -> {
+            if (cache.size() < WARM_ENTRIES) {
+                for (int k = 0; k < WARM_ENTRIES; k++) manager.searchAll("#" + k + "#");
+            }
+            LibraryItem item = items.get(i % items.size());
+            item.setYear(item.getYear());
+            return cache.size();
+        });
+        operations.put("toTableRow", i -> items.get(i % items.size()).toTableRow().length);
+        return operations;
+    }
+
+    private static Repository<Book> bookRepository(LibraryManager manager) {
+        Repository<Book> books = new Repository<>();
+        for (LibraryItem item : manager.getItems(ItemFilter.BOOKS)) books.add((Book) item);
+        return books;
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class CatalogGenerator {
+    private static final String[] WORDS = {"дім", "море", "тінь", "світло", "місто", "ніч", "сонце", "вітер",
+            "дорога", "сад", "зима", "весна", "річка", "гора", "зірка", "легенда", "history", "ocean", "night",
+            "garden", "river", "empire", "code", "future", "silent", "winter", "king", "shadow", "storm", "light"};
+    private static final String[] PEOPLE = {"Т. Дж. Клюн", "Марио Пьюзо", "Дж. Роулінг", "Вачовскі",
+            "Крістофер Нолан", "Ліна Костенко", "Сергій Жадан", "Stephen King", "Ursula Le Guin", "Haruki Murakami",
+            "Андрій Курков", "Оксана Забужко", "Denis Villeneuve", "Greta Gerwig", "Ridley Scott", "Юрій Андрухович"};
+    private static final String[] PUBLISHERS = {"NG Society", "Forbes Media", "Видавництво Старого Лева",
+            "А-БА-БА-ГА-ЛА-МА-ГА", "Vivat", "Наш формат", "Conde Nast", "Time Inc."};
+    private static final String[] USERS = {"Олена", "Петро", "Ірина", "Андрій", "Марія", "Богдан", "Софія", "Тарас"};
+
+    private final Random random;
+
+    CatalogGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    List<LibraryItem> generate(int count) {
+        List<LibraryItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(next(i));
+        }
+        return items;
+    }
+
+    LibraryManager populate(int count, double rentedShare) {
+        LibraryManager manager = new LibraryManager();
+        List<LibraryItem> items = generate(count);
+        manager.addAll(items);
+        for (LibraryItem item : items) {
+            if (random.nextDouble() < rentedShare) manager.rent(item.getId(), pick(USERS));
+        }
+        return manager;
+    }
+
+    private LibraryItem next(int n) {
+        String title = title();
+        int year = 1950 + random.nextInt(76);
+        int kind = random.nextInt(4);
+        if (kind < 2) return new Book(String.format("B%08d", n), title, year, pick(PEOPLE), 50 + random.nextInt(950));
+        if (kind == 2) return new Magazine(String.format("M%08d", n), title, year, 1 + random.nextInt(300), pick(PUBLISHERS));
+        return new DVD(String.format("D%08d", n), title, year, pick(PEOPLE), 60 + random.nextInt(150));
+    }
+
+    private String title() {
+        int words = 1 + random.nextInt(3);
+        StringBuilder title = new StringBuilder(pick(WORDS));
+        for (int i = 1; i < words; i++) title.append(' ').append(pick(WORDS));
+        return title.toString();
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,45 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HeapFootprint {
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long base = usedHeap();
+        List<LibraryItem> items = new CatalogGenerator(42).generate(size);
+        report("LibraryItem objects", items.size(), usedHeap() - base);
+
+        LibraryManager manager = new LibraryManager();
+        manager.addAll(items);
+        report("LibraryManager (items + indexes)", manager.getTotalCount(), usedHeap() - base);
+        manager = null;
+        items = null;
+
+        // Journal replay and imports decode a fresh String for every field of every record.
+        base = usedHeap();
+        List<LibraryItem> decoded = decode(new CatalogGenerator(42).generate(size));
+        report("LibraryItem objects (decoded)", decoded.size(), usedHeap() - base);
+    }
+
+    private static List<LibraryItem> decode(List<LibraryItem> items) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (LibraryItem item : items) CatalogCodec.writeItem(out, item);
+        items.clear();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        List<LibraryItem> decoded = new ArrayList<>();
+        while (in.available() > 0) decoded.add(CatalogCodec.readItem(in));
+        return decoded;
+    }
+
+    private static void report(String label, int size, long bytes) {
+        System.out.printf("%-34s %8.1f MB %8.1f B/item%n", label, bytes / 1e6, (double) bytes / size);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+public class ShardHarness {
+    private static final String[] QUERIES = {"", "море", "ні", "king", "b0000", "silent winter"};
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        LibraryManager reference = new LibraryManager();
+        List<LibraryManager> managers = new ArrayList<>();
+        List<ShardServer> servers = new ArrayList<>();
+        List<SocketShardTransport> transports = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            LibraryManager manager = new LibraryManager();
+            ShardServer server = new ShardServer(manager, 0);
+            server.start();
+            managers.add(manager);
+            servers.add(server);
+            transports.add(new SocketShardTransport(server.getPort()));
+        }
+
+        try (ShardedLibrary library = new ShardedLibrary(transports)) {
+            List<LibraryItem> items = new CatalogGenerator(42).generate(size);
+            long start = System.nanoTime();
+            for (LibraryItem item : items) library.addItem(item);
+            System.out.printf("added %d items to %d nodes in %.1f ms%n", size, nodes, (System.nanoTime() - start) / 1e6);
+            reference.addAll(items);
+
+            compare("catalog after load", library, reference);
+            Random random = new Random(7);
+            for (int i = 0; i < 2_000; i++) {
+                String id = items.get(random.nextInt(items.size())).getId();
+                String user = "user" + random.nextInt(20);
+                boolean rented = library.rent(id, user);
+                check("rent " + id, rented == reference.rent(id, user));
+                if (!rented) check("return " + id, library.returnItem(id) == reference.returnItem(id));
+            }
+            compare("catalog after rentals", library, reference);
+
+            servers.get(0).close();
+            try {
+                library.searchAll("море");
+                check("search with a node down fails", false);
+            } catch (UncheckedIOException | IllegalStateException expected) {
+                check("search with a node down fails", true);
+            }
+            ShardServer restarted = new ShardServer(managers.get(0), servers.get(0).getPort());
+            restarted.start();
+            servers.set(0, restarted);
+            compare("catalog after node restart", library, reference);
+            String id = items.get(0).getId();
+            check("rent after node restart", library.rent(id, "user0") == reference.rent(id, "user0"));
+
+            start = System.nanoTime();
+            int searches = 0;
+            for (; searches < 200; searches++) library.searchAll(QUERIES[searches % QUERIES.length], ItemFilter.ALL);
+            System.out.printf("scatter searchAll: %.1f us/op%n", (System.nanoTime() - start) / 1e3 / searches);
+            start = System.nanoTime();
+            int lookups = 0;
+            for (; lookups < 20_000; lookups++) library.findById(items.get(lookups % items.size()).getId());
+            System.out.printf("routed findById: %.1f us/op%n", (System.nanoTime() - start) / 1e3 / lookups);
+        } finally {
+            for (ShardServer server : servers) server.close();
+        }
+
+        System.out.println(failures == 0 ? "all checks passed" : failures + " checks failed");
+        if (failures > 0) System.exit(1);
+    }
+
+    private static void compare(String label, ShardedLibrary library, LibraryManager reference) {
+        for (String query : QUERIES) {
+            for (ItemFilter filter : ItemFilter.values()) {
+                check(label + ": search '" + query + "' " + filter.name(),
+                        ids(library.searchAll(query, filter)).equals(ids(reference.searchAll(query, filter))));
+            }
+        }
+        LibraryStats sharded = library.getStatistics();
+        LibraryStats single = reference.getStatistics();
+        check(label + ": statistics", sharded.total() == single.total() && sharded.rented() == single.rented()
+                && sharded.books() == single.books() && sharded.rentalsByUser().equals(single.rentalsByUser())
+                && sharded.itemsByYear().equals(single.itemsByYear())
+                && Objects.equals(sharded.oldestLoan(), single.oldestLoan()));
+    }
+
+    private static Set<String> ids(List<LibraryItem> items) {
+        Set<String> ids = new HashSet<>();
+        for (LibraryItem item : items) ids.add(item.getId());
+        return ids;
+    }
+
+    private static void check(String label, boolean ok) {
+        if (ok) return;
+        failures++;
+        System.out.println("FAIL " + label);
+    }
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx12g"})
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LibraryBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private IntToLongFunction repositoryFindById;
+    private IntToLongFunction repositorySearch;
+    private IntToLongFunction repositorySearchShort;
+    private IntToLongFunction findById;
+    private IntToLongFunction searchAll;
+    private IntToLongFunction searchAllCached;
+    private IntToLongFunction filterCombo;
+    private IntToLongFunction findAll;
+    private IntToLongFunction query;
+    private IntToLongFunction getAllItems;
+    private IntToLongFunction getBookCount;
+    private IntToLongFunction editWithWarmCache;
+    private IntToLongFunction toTableRow;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws ReflectiveOperationException {
+        // JMH refuses benchmarks in the unnamed package, and a named package cannot import the
+        // library classes, so the catalog and its operations are looked up once by name.
+        Map<String, IntToLongFunction> operations = (Map<String, IntToLongFunction>) Class.forName("BenchmarkCatalog")
+                .getMethod("operations", int.class).invoke(null, size);
+        repositoryFindById = operations.get("repositoryFindById");
+        repositorySearch = operations.get("repositorySearch");
+        repositorySearchShort = operations.get("repositorySearchShort");
+        findById = operations.get("findById");
+        searchAll = operations.get("searchAll");
+        searchAllCached = operations.get("searchAllCached");
+        filterCombo = operations.get("filterCombo");
+        findAll = operations.get("findAll");
+        query = operations.get("query");
+        getAllItems = operations.get("getAllItems");
+        getBookCount = operations.get("getBookCount");
+        editWithWarmCache = operations.get("editWithWarmCache");
+        toTableRow = operations.get("toTableRow");
+    }
+
+    private int next() {
+        return invocation++ & Integer.MAX_VALUE;
+    }
+
+    @Benchmark
+    public long repositoryFindById() { return repositoryFindById.applyAsLong(next()); }
+
+    @Benchmark
+    public long repositorySearch() { return repositorySearch.applyAsLong(next()); }
+
+    @Benchmark
+    public long repositorySearchShort() { return repositorySearchShort.applyAsLong(next()); }
+
+    @Benchmark
+    public long findById() { return findById.applyAsLong(next()); }
+
+    @Benchmark
+    public long searchAll() { return searchAll.applyAsLong(next()); }
+
+    @Benchmark
+    public long searchAllCached() { return searchAllCached.applyAsLong(next()); }
+
+    @Benchmark
+    public long filterCombo() { return filterCombo.applyAsLong(next()); }
+
+    @Benchmark
+    public long findAll() { return findAll.applyAsLong(next()); }
+
+    @Benchmark
+    public long query() { return query.applyAsLong(next()); }
+
+    @Benchmark
+    public long getAllItems() { return getAllItems.applyAsLong(next()); }
+
+    @Benchmark
+    public long getBookCount() { return getBookCount.applyAsLong(next()); }
+
+    @Benchmark
+    public long editWithWarmCache() { return editWithWarmCache.applyAsLong(next()); }
+
+    @Benchmark
+    public long toTableRow() { return toTableRow.applyAsLong(next()); }
+}
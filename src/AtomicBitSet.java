@@ -0,0 +1,46 @@
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class AtomicBitSet {
+    private volatile AtomicLongArray words = new AtomicLongArray(1);
+
+    public boolean get(int bit) {
+        AtomicLongArray current = words;
+        int word = bit >>> 6;
+        return word < current.length() && (current.get(word) & (1L << bit)) != 0;
+    }
+
+    public void set(int bit, boolean value) {
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        AtomicLongArray current = words;
+        if (word >= current.length()) {
+            if (!value) return;
+            current = grow(word + 1);
+        }
+        long old;
+        do {
+            old = current.get(word);
+        } while (!current.compareAndSet(word, old, value ? old | mask : old & ~mask));
+    }
+
+    public void clear(int bit) {
+        set(bit, false);
+    }
+
+    public BitSet snapshot() {
+        AtomicLongArray current = words;
+        long[] copy = new long[current.length()];
+        for (int i = 0; i < copy.length; i++) copy[i] = current.get(i);
+        return BitSet.valueOf(copy);
+    }
+
+    private synchronized AtomicLongArray grow(int length) {
+        AtomicLongArray current = words;
+        if (length <= current.length()) return current;
+        AtomicLongArray grown = new AtomicLongArray(Math.max(length, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) grown.set(i, current.get(i));
+        words = grown;
+        return grown;
+    }
+}
@@ -0,0 +1,62 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+class CatalogCodec {
+    static final byte BOOK = 'B';
+    static final byte MAGAZINE = 'M';
+    static final byte DVD_TYPE = 'D';
+
+    private CatalogCodec() {}
+
+    static void writeItem(DataOutput out, LibraryItem item) throws IOException {
+        if (item instanceof Book book) {
+            out.writeByte(BOOK);
+            writeCommon(out, item);
+            out.writeUTF(book.getAuthor());
+            out.writeInt(book.getPages());
+        } else if (item instanceof Magazine magazine) {
+            out.writeByte(MAGAZINE);
+            writeCommon(out, item);
+            out.writeInt(magazine.getIssueNumber());
+            out.writeUTF(magazine.getPublisher());
+        } else if (item instanceof DVD dvd) {
+            out.writeByte(DVD_TYPE);
+            writeCommon(out, item);
+            out.writeUTF(dvd.getDirector());
+            out.writeInt(dvd.getDuration());
+        } else {
+            throw new IOException("Невідомий тип елемента: " + item.getClass().getName());
+        }
+        Loan loan = item.getLoan();
+        out.writeBoolean(loan != null);
+        if (loan != null) {
+            out.writeUTF(loan.user());
+            out.writeLong(loan.date().toEpochDay());
+        }
+    }
+
+    static LibraryItem readItem(DataInput in) throws IOException {
+        byte type = in.readByte();
+        String id = in.readUTF();
+        String title = in.readUTF();
+        int year = in.readInt();
+        LibraryItem item = switch (type) {
+            case BOOK -> new Book(id, title, year, in.readUTF(), in.readInt());
+            case MAGAZINE -> new Magazine(id, title, year, in.readInt(), in.readUTF());
+            case DVD_TYPE -> new DVD(id, title, year, in.readUTF(), in.readInt());
+            default -> throw new IOException("Невідомий тип запису: " + type);
+        };
+        if (in.readBoolean()) {
+            item.restoreLoan(new Loan(in.readUTF(), LocalDate.ofEpochDay(in.readLong())));
+        }
+        return item;
+    }
+
+    private static void writeCommon(DataOutput out, LibraryItem item) throws IOException {
+        out.writeUTF(item.getId());
+        out.writeUTF(item.getTitle());
+        out.writeInt(item.getYear());
+    }
+}
@@ -0,0 +1,290 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+// Layout: header, record offsets, CatalogCodec records, then the text index keyed by record
+// number: the sorted trigram keys, their posting starts and the postings themselves.
+// Everything is read straight from the mapping.
+class CatalogImage {
+    private static final int MAGIC = 0x4C424933;
+    private static final int HEADER_SIZE = 28;
+
+    interface PostingConsumer {
+        void accept(String gram, int[] records, int count);
+    }
+
+    private final MappedByteBuffer buffer;
+    private final long generation;
+    private final int count;
+    private final int gramsStart;
+    private final int gramCount;
+    private final int postingsStart;
+    private final AtomicReferenceArray<LibraryItem> decoded;
+
+    // Every section is bounds-checked before it is read, so a damaged header surfaces as an
+    // IOException rather than an IndexOutOfBoundsException from the mapping.
+    private CatalogImage(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) throw new IOException("Пошкоджений образ каталогу");
+        generation = buffer.getLong(4);
+        count = buffer.getInt(12);
+        gramsStart = buffer.getInt(16);
+        gramCount = buffer.getInt(20);
+        postingsStart = buffer.getInt(24);
+        boolean valid = count >= 0 && within(HEADER_SIZE, (long) count * 4) && gramCount >= 0
+                && gramsStart + (long) gramCount * 12 + 4 == postingsStart
+                && within(gramsStart, (long) gramCount * 12 + 4);
+        if (!valid || postingStart(0) != 0 || !within(postingsStart, (long) postingStart(gramCount) * 4)) {
+            throw new IOException("Пошкоджений образ каталогу");
+        }
+        decoded = new AtomicReferenceArray<>(count);
+    }
+
+    private boolean within(long offset, long length) {
+        return offset >= 0 && length >= 0 && offset + length <= buffer.limit();
+    }
+
+    static CatalogImage open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Образ каталогу завеликий: " + file);
+            return new CatalogImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static void write(Path file, long generation, Collection<? extends LibraryItem> items) throws IOException {
+        int count = items.size();
+        int recordsOffset = HEADER_SIZE + count * 4;
+        int[] offsets = new int[count];
+        Map<Long, Postings> postings = new HashMap<>();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel.position(recordsOffset)), 1 << 16));
+            int index = 0;
+            for (LibraryItem item : items) {
+                if (index == count) break;
+                offsets[index] = checkedOffset(file, (long) recordsOffset + out.size());
+                for (String gram : SearchIndex.grams(item)) postings.computeIfAbsent(gramKey(gram), g -> new Postings()).add(index);
+                CatalogCodec.writeItem(out, item);
+                index++;
+            }
+
+            int gramsStart = checkedOffset(file, (long) recordsOffset + out.size());
+            long[] grams = postings.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            for (long gram : grams) out.writeLong(gram);
+            long start = 0;
+            out.writeInt(0);
+            for (long gram : grams) {
+                start += postings.get(gram).size;
+                out.writeInt(checkedOffset(file, start));
+            }
+            int postingsStart = checkedOffset(file, (long) recordsOffset + out.size());
+            for (long gram : grams) {
+                Postings posting = postings.get(gram);
+                for (int i = 0; i < posting.size; i++) out.writeInt(posting.ids[i]);
+            }
+            out.flush();
+            checkedOffset(file, (long) recordsOffset + out.size());
+
+            ByteBuffer header = ByteBuffer.allocate(recordsOffset);
+            header.putInt(MAGIC).putLong(generation).putInt(index)
+                    .putInt(gramsStart).putInt(grams.length).putInt(postingsStart);
+            for (int i = 0; i < index; i++) header.putInt(offsets[i]);
+            header.flip();
+            while (header.hasRemaining()) channel.write(header, header.position());
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int checkedOffset(Path file, long offset) throws IOException {
+        if (offset > Integer.MAX_VALUE) throw new IOException("Образ каталогу завеликий: " + file);
+        return (int) offset;
+    }
+
+    public long generation() { return generation; }
+    public int size() { return count; }
+
+    // Hands out the stored postings in record order, one range of records at a time, so a
+    // loader can text-index each chunk of items as soon as it has inserted them.
+    public PostingCursor postings() {
+        return new PostingCursor();
+    }
+
+    // Mirrors LibraryManager.searchAll over the stored postings, decoding only the candidates.
+    public List<LibraryItem> search(String query, ItemFilter filter) {
+        String q = query.toLowerCase();
+        List<LibraryItem> results = new ArrayList<>();
+        for (PrimitiveIterator.OfInt it = candidates(q); it.hasNext(); ) {
+            int index = it.nextInt();
+            if (!typeAccepts(filter, index)) continue;
+            LibraryItem item = get(index);
+            if (filter.accepts(item) && (q.isEmpty() || item.matches(query))) results.add(item);
+        }
+        return results;
+    }
+
+    private PrimitiveIterator.OfInt candidates(String q) {
+        if (q.isEmpty()) return IntStream.range(0, count).iterator();
+        if (q.length() < SearchIndex.GRAM_LENGTH) {
+            BitSet selected = new BitSet(count);
+            for (int gram = 0; gram < gramCount; gram++) {
+                if (!gramText(buffer.getLong(gramsStart + gram * 8)).contains(q)) continue;
+                for (int i = postingStart(gram); i < postingStart(gram + 1); i++) selected.set(buffer.getInt(postingsStart + i * 4));
+            }
+            return selected.stream().iterator();
+        }
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i + SearchIndex.GRAM_LENGTH <= q.length(); i++) {
+            int gram = findGram(gramKey(q.substring(i, i + SearchIndex.GRAM_LENGTH)));
+            if (gram < 0) return IntStream.empty().iterator();
+            ranges.add(new int[]{ postingStart(gram), postingStart(gram + 1) });
+        }
+        ranges.sort(Comparator.comparingInt(range -> range[1] - range[0]));
+        int[] smallest = ranges.get(0);
+        return IntStream.range(smallest[0], smallest[1])
+                .map(i -> buffer.getInt(postingsStart + i * 4))
+                .filter(index -> {
+                    for (int r = 1; r < ranges.size(); r++) {
+                        if (!postingContains(ranges.get(r), index)) return false;
+                    }
+                    return true;
+                })
+                .iterator();
+    }
+
+    private boolean typeAccepts(ItemFilter filter, int index) {
+        byte type = buffer.get(buffer.getInt(HEADER_SIZE + index * 4));
+        return switch (filter) {
+            case BOOKS -> type == CatalogCodec.BOOK;
+            case MAGAZINES -> type == CatalogCodec.MAGAZINE;
+            case DVDS -> type == CatalogCodec.DVD_TYPE;
+            default -> true;
+        };
+    }
+
+    private int postingStart(int gram) {
+        return buffer.getInt(gramsStart + gramCount * 8 + gram * 4);
+    }
+
+    private int findGram(long key) {
+        int low = 0, high = gramCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = buffer.getLong(gramsStart + mid * 8);
+            if (value < key) low = mid + 1;
+            else if (value > key) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private boolean postingContains(int[] range, int index) {
+        int low = range[0], high = range[1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = buffer.getInt(postingsStart + mid * 4);
+            if (value < index) low = mid + 1;
+            else if (value > index) high = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    private static long gramKey(String gram) {
+        return (long) gram.charAt(0) << 32 | (long) gram.charAt(1) << 16 | gram.charAt(2);
+    }
+
+    private static String gramText(long key) {
+        return new String(new char[]{ (char) (key >>> 32), (char) (key >>> 16), (char) key });
+    }
+
+    public LibraryItem get(int index) {
+        LibraryItem item = decoded.get(index);
+        if (item != null) return item;
+        try {
+            item = CatalogCodec.readItem(input(buffer.getInt(HEADER_SIZE + index * 4)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return decoded.compareAndSet(index, null, item) ? item : decoded.get(index);
+    }
+
+    public List<LibraryItem> items() {
+        return new Items();
+    }
+
+    private DataInputStream input(int offset) {
+        return new DataInputStream(new BufferInput(buffer.duplicate().position(offset)));
+    }
+
+    private class Items extends AbstractList<LibraryItem> implements RandomAccess {
+        public LibraryItem get(int index) { return CatalogImage.this.get(index); }
+        public int size() { return count; }
+    }
+
+    class PostingCursor {
+        private final int[] next = new int[gramCount];
+        private final String[] grams = new String[gramCount];
+        private int[] records = new int[64];
+
+        private PostingCursor() {
+            for (int gram = 0; gram < gramCount; gram++) next[gram] = postingStart(gram);
+        }
+
+        // Passes every gram's postings below the given record, continuing where the
+        // previous call stopped.
+        public void advance(int to, PostingConsumer consumer) {
+            for (int gram = 0; gram < gramCount; gram++) {
+                int at = next[gram];
+                int end = postingStart(gram + 1);
+                int n = 0;
+                for (int record; at < end && (record = buffer.getInt(postingsStart + at * 4)) < to; at++) {
+                    if (n == records.length) records = Arrays.copyOf(records, n * 2);
+                    records[n++] = record;
+                }
+                next[gram] = at;
+                if (n == 0) continue;
+                if (grams[gram] == null) grams[gram] = gramText(buffer.getLong(gramsStart + gram * 8));
+                consumer.accept(grams[gram], records, n);
+            }
+        }
+    }
+
+    private static class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    private static class BufferInput extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInput(ByteBuffer buffer) { this.buffer = buffer; }
+
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+    }
+}
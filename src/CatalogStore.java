@@ -0,0 +1,200 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+class CatalogStore implements LibraryListener, AutoCloseable {
+    private static final int JOURNAL_MAGIC = 0x4C424A31;
+    private static final int JOURNAL_HEADER_SIZE = 12;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    static final int SNAPSHOT_INTERVAL = 100_000;
+    static final int HYDRATE_CHUNK = 10_000;
+
+    private static final Object SNAPSHOT = new Object();
+    private static final Object CLOSE = new Object();
+
+    private record Put(LibraryItem item) {}
+    private record Remove(String id) {}
+
+    private final Path imageFile;
+    private final Path journalFile;
+    private final LibraryManager manager;
+    private final BlockingQueue<Object> pending = new LinkedBlockingQueue<>();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+    private final CRC32 crc = new CRC32();
+    private FileChannel journalChannel;
+    private DataOutputStream journal;
+    private long generation;
+    private int recordsSinceSnapshot;
+    private Thread writer;
+    private CatalogImage image;
+
+    CatalogStore(Path directory, LibraryManager manager) {
+        this.imageFile = directory.resolve("catalog.image");
+        this.journalFile = directory.resolve("catalog.journal");
+        this.manager = manager;
+    }
+
+    public boolean open() throws IOException {
+        Files.createDirectories(imageFile.getParent());
+        boolean loaded = Files.exists(imageFile) && loadImage();
+        journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validEnd = replayJournal();
+        if (validEnd < 0) {
+            resetJournal();
+        } else {
+            loaded |= validEnd > JOURNAL_HEADER_SIZE;
+            journalChannel.truncate(validEnd);
+            journalChannel.position(validEnd);
+        }
+        journal = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journalChannel), 1 << 16));
+
+        manager.addListener(this);
+        writer = new Thread(this::writeLoop, "catalog-journal");
+        writer.setDaemon(true);
+        writer.start();
+        return loaded;
+    }
+
+    public void itemAdded(LibraryItem item) { pending.add(new Put(item)); }
+    public void itemChanged(LibraryItem item) { pending.add(new Put(item)); }
+    public void itemRemoved(LibraryItem item) { pending.add(new Remove(item.getId())); }
+
+    public void snapshot() {
+        pending.add(SNAPSHOT);
+    }
+
+    public void close() {
+        if (writer == null) return;
+        manager.removeListener(this);
+        pending.add(SNAPSHOT);
+        pending.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    public CatalogImage mapImage() throws IOException {
+        if (image == null && Files.exists(imageFile)) image = CatalogImage.open(imageFile);
+        return image;
+    }
+
+    private boolean loadImage() throws IOException {
+        CatalogImage source = mapImage();
+        image = null;
+        generation = source.generation();
+        return manager.hydrate(source, HYDRATE_CHUNK) > 0;
+    }
+
+    private long replayJournal() throws IOException {
+        if (journalChannel.size() < JOURNAL_HEADER_SIZE) return -1;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(journalChannel.position(0)), 1 << 16));
+        if (in.readInt() != JOURNAL_MAGIC || in.readLong() != generation) return -1;
+
+        long position = JOURNAL_HEADER_SIZE;
+        long size = journalChannel.size();
+        byte[] payload = new byte[256];
+        while (position + 8 <= size) {
+            int length = in.readInt();
+            long checksum = in.readInt() & 0xFFFFFFFFL;
+            if (length <= 0 || position + 8 + length > size) break;
+            if (payload.length < length) payload = new byte[length];
+            in.readFully(payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if (crc.getValue() != checksum) break;
+            apply(new DataInputStream(new ByteArrayInputStream(payload, 0, length)));
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    private void apply(DataInputStream record) throws IOException {
+        byte op = record.readByte();
+        if (op == PUT) {
+            LibraryItem item = CatalogCodec.readItem(record);
+            manager.discardItem(item.getId());
+            manager.addItem(item);
+        } else if (op == REMOVE) {
+            manager.discardItem(record.readUTF());
+        }
+    }
+
+    private void resetJournal() throws IOException {
+        journalChannel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE).putInt(JOURNAL_MAGIC).putLong(generation).flip();
+        while (header.hasRemaining()) journalChannel.write(header, header.position());
+        journalChannel.position(JOURNAL_HEADER_SIZE);
+        journalChannel.force(true);
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(pending.take());
+                pending.drainTo(batch);
+                boolean snapshotRequested = false;
+                for (Object entry : batch) {
+                    if (entry == CLOSE) running = false;
+                    else if (entry == SNAPSHOT) snapshotRequested = true;
+                    else writeRecord(entry);
+                }
+                journal.flush();
+                journalChannel.force(false);
+                if (snapshotRequested || recordsSinceSnapshot >= SNAPSHOT_INTERVAL) writeSnapshot();
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException e) {
+                System.err.println("Помилка запису журналу каталогу: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Помилка закриття журналу каталогу: " + e.getMessage());
+        }
+    }
+
+    private void writeRecord(Object entry) throws IOException {
+        recordBuffer.reset();
+        if (entry instanceof Put put) {
+            recordOut.writeByte(PUT);
+            CatalogCodec.writeItem(recordOut, put.item());
+        } else if (entry instanceof Remove remove) {
+            recordOut.writeByte(REMOVE);
+            recordOut.writeUTF(remove.id());
+        }
+        crc.reset();
+        crc.update(recordBuffer.toByteArray());
+        journal.writeInt(recordBuffer.size());
+        journal.writeInt((int) crc.getValue());
+        recordBuffer.writeTo(journal);
+        recordsSinceSnapshot++;
+    }
+
+    private void writeSnapshot() throws IOException {
+        CatalogImage.write(imageFile, generation + 1, manager.getAllItems());
+        generation++;
+        journal.flush();
+        resetJournal();
+        recordsSinceSnapshot = 0;
+    }
+}
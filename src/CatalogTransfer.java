@@ -0,0 +1,409 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongConsumer;
+
+class CatalogTransfer {
+    static final int CHUNK_SIZE = 10_000;
+    private static final int MAX_CHUNKS_IN_FLIGHT = 4;
+    private static final String[] COLUMNS = {"type", "id", "title", "year", "author", "pages",
+            "issueNumber", "publisher", "director", "duration", "rentedBy", "rentDate"};
+
+    record ImportReport(long imported, long skipped) {}
+    private record Chunk(CompletableFuture<Integer> inserted, int size) {}
+
+    private CatalogTransfer() {}
+
+    public static ImportReport importCatalog(Path file, LibraryManager manager, LongConsumer progress) throws IOException {
+        long read = 0;
+        long processed = 0;
+        long imported = 0;
+        Deque<Chunk> inFlight = new ArrayDeque<>();
+        CompletableFuture<Integer> previous = CompletableFuture.completedFuture(0);
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RecordReader records = isJson(file) ? new JsonRecordReader(reader) : new CsvRecordReader(reader);
+            List<Map<String, String>> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (true) {
+                Map<String, String> record = records.next();
+                if (record != null) {
+                    chunk.add(record);
+                    read++;
+                }
+                if (!chunk.isEmpty() && (record == null || chunk.size() == CHUNK_SIZE)) {
+                    List<Map<String, String>> batch = chunk;
+                    CompletableFuture<List<LibraryItem>> built = CompletableFuture.supplyAsync(() ->
+                            batch.parallelStream().map(CatalogTransfer::toItem).filter(Objects::nonNull).toList());
+                    previous = previous.thenCombine(built, (ignored, items) -> manager.addAll(items));
+                    inFlight.add(new Chunk(previous, batch.size()));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+                while (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT || (record == null && !inFlight.isEmpty())) {
+                    Chunk done = inFlight.poll();
+                    imported += done.inserted().join();
+                    processed += done.size();
+                    progress.accept(processed);
+                }
+                if (record == null) break;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Chunks already handed off would keep inserting after we return; wait for them so
+            // the catalog has stopped changing when the caller hears about the failure.
+            for (Chunk chunk : inFlight) {
+                try {
+                    imported += chunk.inserted().join();
+                } catch (CompletionException | CancellationException ignored) {
+                    // The chain is broken from here on; later chunks fail the same way.
+                }
+            }
+            throw new IOException("Імпорт перервано, імпортовано елементів: " + imported + ". " + e.getMessage(), e);
+        }
+        return new ImportReport(imported, read - imported);
+    }
+
+    public static long exportCatalog(Path file, LibraryManager manager) throws IOException {
+        long count = 0;
+        boolean json = isJson(file);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            if (json) {
+                out.write('[');
+            } else {
+                out.write(String.join(",", COLUMNS));
+                out.write('\n');
+            }
+            for (LibraryItem item : manager.getAllItems()) {
+                if (json) {
+                    if (count > 0) out.write(',');
+                    out.write('\n');
+                    writeJson(out, item);
+                } else {
+                    writeCsv(out, item);
+                }
+                count++;
+            }
+            if (json) out.write("\n]\n");
+        }
+        return count;
+    }
+
+    static String typeCode(LibraryItem item) {
+        if (item instanceof Book) return "book";
+        if (item instanceof Magazine) return "magazine";
+        return "dvd";
+    }
+
+    static LibraryItem toItem(Map<String, String> record) {
+        try {
+            String id = required(record, "id");
+            String title = required(record, "title");
+            int year = Integer.parseInt(required(record, "year"));
+            LibraryItem item = switch (required(record, "type").toLowerCase()) {
+                case "book", "книга" -> new Book(id, title, year, required(record, "author"),
+                        Integer.parseInt(required(record, "pages")));
+                case "magazine", "журнал" -> new Magazine(id, title, year,
+                        Integer.parseInt(required(record, "issueNumber")), required(record, "publisher"));
+                case "dvd" -> new DVD(id, title, year, required(record, "director"),
+                        Integer.parseInt(required(record, "duration")));
+                default -> null;
+            };
+            String rentedBy = record.get("rentedBy");
+            if (item != null && rentedBy != null && !rentedBy.isBlank()) {
+                String date = record.get("rentDate");
+                item.restoreLoan(new Loan(rentedBy, date == null || date.isBlank() ? LocalDate.now() : LocalDate.parse(date)));
+            }
+            return item;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String required(Map<String, String> record, String key) {
+        String value = record.get(key);
+        if (value == null || value.isBlank()) throw new IllegalArgumentException("Відсутнє поле: " + key);
+        return value.trim();
+    }
+
+    private static String[] values(LibraryItem item) {
+        String[] values = new String[COLUMNS.length];
+        values[0] = typeCode(item);
+        values[1] = item.getId();
+        values[2] = item.getTitle();
+        values[3] = String.valueOf(item.getYear());
+        if (item instanceof Book book) {
+            values[4] = book.getAuthor();
+            values[5] = String.valueOf(book.getPages());
+        } else if (item instanceof Magazine magazine) {
+            values[6] = String.valueOf(magazine.getIssueNumber());
+            values[7] = magazine.getPublisher();
+        } else if (item instanceof DVD dvd) {
+            values[8] = dvd.getDirector();
+            values[9] = String.valueOf(dvd.getDuration());
+        }
+        Loan loan = item.getLoan();
+        if (loan != null) {
+            values[10] = loan.user();
+            values[11] = loan.date().toString();
+        }
+        return values;
+    }
+
+    private static void writeCsv(Writer out, LibraryItem item) throws IOException {
+        String[] values = values(item);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            String value = values[i];
+            if (value == null) continue;
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write('\n');
+    }
+
+    static void writeJson(Writer out, LibraryItem item) throws IOException {
+        out.write("{\"type\":");
+        writeJsonString(out, typeCode(item));
+        out.write(",\"id\":");
+        writeJsonString(out, item.getId());
+        out.write(",\"title\":");
+        writeJsonString(out, item.getTitle());
+        out.write(",\"year\":");
+        out.write(Integer.toString(item.getYear()));
+        if (item instanceof Book book) {
+            out.write(",\"author\":");
+            writeJsonString(out, book.getAuthor());
+            out.write(",\"pages\":");
+            out.write(Integer.toString(book.getPages()));
+        } else if (item instanceof Magazine magazine) {
+            out.write(",\"issueNumber\":");
+            out.write(Integer.toString(magazine.getIssueNumber()));
+            out.write(",\"publisher\":");
+            writeJsonString(out, magazine.getPublisher());
+        } else if (item instanceof DVD dvd) {
+            out.write(",\"director\":");
+            writeJsonString(out, dvd.getDirector());
+            out.write(",\"duration\":");
+            out.write(Integer.toString(dvd.getDuration()));
+        }
+        Loan loan = item.getLoan();
+        if (loan != null) {
+            out.write(",\"rentedBy\":");
+            writeJsonString(out, loan.user());
+            out.write(",\"rentDate\":\"");
+            out.write(loan.date().toString());
+            out.write('"');
+        }
+        out.write('}');
+    }
+
+    static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                    else out.write(c);
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    private static boolean isJson(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".json");
+    }
+
+    interface RecordReader {
+        Map<String, String> next() throws IOException;
+    }
+
+    static class CsvRecordReader implements RecordReader {
+        private final Reader in;
+        private String[] header;
+
+        CsvRecordReader(Reader in) {
+            this.in = in;
+        }
+
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                List<String> names = readRow();
+                if (names == null) return null;
+                header = names.stream().map(String::trim).toArray(String[]::new);
+            }
+            List<String> row;
+            do {
+                row = readRow();
+                if (row == null) return null;
+            } while (row.size() == 1 && row.get(0).isEmpty());
+            Map<String, String> record = new HashMap<>();
+            for (int i = 0; i < header.length && i < row.size(); i++) record.put(header[i], row.get(i));
+            return record;
+        }
+
+        private List<String> readRow() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int c = in.read();
+            if (c == -1) return null;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new EOFException("Незакрита лапка у CSV");
+                    if (c == '"') {
+                        int nextChar = in.read();
+                        if (nextChar == '"') field.append('"');
+                        else {
+                            quoted = false;
+                            c = nextChar;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+
+    static class JsonRecordReader implements RecordReader {
+        private final PushbackReader in;
+        private boolean started;
+
+        JsonRecordReader(Reader in) {
+            this.in = new PushbackReader(in, 1);
+        }
+
+        public Map<String, String> next() throws IOException {
+            if (!started) {
+                expect('[');
+                started = true;
+                int c = skipWhitespace();
+                if (c == ']') return null;
+                unread(in, c);
+            } else {
+                int c = skipWhitespace();
+                if (c == ']') return null;
+                if (c == -1) throw new EOFException("Незакритий масив у JSON");
+                if (c != ',') throw new IOException("Очікувалась ',' у JSON, знайдено: " + (char) c);
+            }
+            return readObject(in);
+        }
+
+        static Map<String, String> readObject(PushbackReader in) throws IOException {
+            Map<String, String> record = new HashMap<>();
+            expect(in, '{');
+            int c = skipWhitespace(in);
+            if (c == '}') return record;
+            unread(in, c);
+            while (true) {
+                expect(in, '"');
+                String key = readString(in);
+                expect(in, ':');
+                record.put(key, readValue(in));
+                c = skipWhitespace(in);
+                if (c == '}') return record;
+                if (c != ',') throw new IOException("Очікувалась ',' або '}' у JSON");
+                unread(in, skipWhitespace(in));
+            }
+        }
+
+        private static String readValue(PushbackReader in) throws IOException {
+            int c = skipWhitespace(in);
+            if (c == '"') return readString(in);
+            StringBuilder literal = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                literal.append((char) c);
+                c = in.read();
+            }
+            if (c != -1) in.unread(c);
+            String value = literal.toString();
+            return value.equals("null") ? null : value;
+        }
+
+        private static String readString(PushbackReader in) throws IOException {
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                int c = in.read();
+                if (c == -1) throw new EOFException("Незакритий рядок у JSON");
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append((char) c);
+                    continue;
+                }
+                int escaped = in.read();
+                if (escaped == -1) throw new EOFException("Незакритий рядок у JSON");
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(in.read(), 16);
+                            if (digit < 0) throw new IOException("Некоректна послідовність \\u у JSON");
+                            code = code * 16 + digit;
+                        }
+                        value.append((char) code);
+                    }
+                    default -> value.append((char) escaped);
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            expect(in, expected);
+        }
+
+        private int skipWhitespace() throws IOException {
+            return skipWhitespace(in);
+        }
+
+        private static void expect(PushbackReader in, char expected) throws IOException {
+            int c = skipWhitespace(in);
+            if (c != expected) throw new IOException("Очікувалось '" + expected + "' у JSON");
+        }
+
+        // PushbackReader.unread(-1) would push back (char) -1 instead of the end of input.
+        private static void unread(PushbackReader in, int c) throws IOException {
+            if (c == -1) throw new EOFException("Неочікуваний кінець JSON");
+            in.unread(c);
+        }
+
+        private static int skipWhitespace(PushbackReader in) throws IOException {
+            int c;
+            do {
+                c = in.read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.*;
+
+class FuzzySearch {
+    private static final double[] FIELD_WEIGHTS = { 1.0, 3.0, 2.0 };
+    private static final double BEST_WEIGHT = Math.max(1.0, Arrays.stream(FIELD_WEIGHTS).max().orElse(1.0));
+
+    record Hit(LibraryItem item, double score) {}
+
+    private final String query;
+    private final int maxEdits;
+    private final int queryGrams;
+    private final int minSharedGrams;
+    private final int limit;
+    private final PriorityQueue<Hit> top;
+    private final Set<LibraryItem> inTop = new HashSet<>();
+
+    FuzzySearch(String query, int limit) {
+        this.query = query.toLowerCase();
+        this.maxEdits = maxEdits(this.query.length());
+        this.queryGrams = queryGrams(this.query);
+        this.minSharedGrams = Math.max(0, queryGrams - SearchIndex.GRAM_LENGTH * maxEdits);
+        this.limit = limit;
+        this.top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score)
+                .thenComparing(hit -> hit.item().getId(), Comparator.reverseOrder()));
+    }
+
+    static int maxEdits(int length) {
+        if (length <= 2) return 0;
+        if (length <= 4) return 1;
+        if (length <= 8) return 2;
+        return 3;
+    }
+
+    static int queryGrams(String query) {
+        if (query.length() < SearchIndex.GRAM_LENGTH) return 1;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + SearchIndex.GRAM_LENGTH <= query.length(); i++) grams.add(query.substring(i, i + SearchIndex.GRAM_LENGTH));
+        return grams.size();
+    }
+
+    public String getQuery() { return query; }
+    public int getMinSharedGrams() { return minSharedGrams; }
+
+    public List<String> getPieces() {
+        int parts = maxEdits + 1;
+        List<String> pieces = new ArrayList<>(parts);
+        for (int i = 0; i < parts; i++) {
+            pieces.add(query.substring(i * query.length() / parts, (i + 1) * query.length() / parts));
+        }
+        return pieces;
+    }
+
+    public boolean isSettled(int sharedGrams) {
+        int minEdits = Math.max(0, (queryGrams - sharedGrams + SearchIndex.GRAM_LENGTH - 1) / SearchIndex.GRAM_LENGTH);
+        if (limit <= 0 || minEdits > maxEdits) return true;
+        if (top.size() < limit) return false;
+        return BEST_WEIGHT * (1.0 - (double) minEdits / (query.length() + 1)) <= top.peek().score();
+    }
+
+    public void offer(LibraryItem item) {
+        double score = score(item);
+        if (score <= 0 || limit <= 0 || inTop.contains(item)) return;
+        if (top.size() < limit) {
+            top.add(new Hit(item, score));
+            inTop.add(item);
+        } else if (top.comparator().compare(new Hit(item, score), top.peek()) > 0) {
+            inTop.remove(top.poll().item());
+            top.add(new Hit(item, score));
+            inTop.add(item);
+        }
+    }
+
+    public List<LibraryItem> results() {
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(top.comparator().reversed());
+        List<LibraryItem> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) result.add(hit.item());
+        return result;
+    }
+
+    public double score(LibraryItem item) {
+        String[] fields = item.getSearchFields();
+        double best = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] == null) continue;
+            String field = fields[i].toLowerCase();
+            int distance = maxEdits == 0 ? (field.contains(query) ? 0 : 1) : distance(query, field, maxEdits);
+            if (distance > maxEdits) continue;
+            double weight = i < FIELD_WEIGHTS.length ? FIELD_WEIGHTS[i] : 1.0;
+            best = Math.max(best, weight * (1.0 - (double) distance / (query.length() + 1)));
+        }
+        return best;
+    }
+
+    static int distance(String pattern, String text, int max) {
+        int m = pattern.length();
+        int[] column = new int[m + 1];
+        for (int i = 0; i <= m; i++) column[i] = i;
+        int best = column[m];
+        for (int j = 0; j < text.length() && best > 0; j++) {
+            char c = text.charAt(j);
+            int diagonal = column[0];
+            for (int i = 1; i <= m; i++) {
+                int above = column[i];
+                column[i] = Math.min(diagonal + (pattern.charAt(i - 1) == c ? 0 : 1),
+                        Math.min(above, column[i - 1]) + 1);
+                diagonal = above;
+            }
+            best = Math.min(best, column[m]);
+        }
+        return Math.min(best, max + 1);
+    }
+}
@@ -0,0 +1,34 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+class LibraryContext implements AutoCloseable {
+    private final LibraryManager manager = new LibraryManager();
+    private final CatalogStore store;
+    private final LoanLedger ledger;
+
+    LibraryContext(Path dataDirectory) {
+        store = new CatalogStore(dataDirectory, manager);
+        ledger = new LoanLedger(dataDirectory.resolve("loans.log"));
+    }
+
+    static Path defaultDataDirectory() {
+        return Path.of(System.getProperty("library.data", "library-data"));
+    }
+
+    public boolean open() throws IOException {
+        ledger.open();
+        manager.addListener(ledger);
+        boolean loaded = store.open();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+        return loaded;
+    }
+
+    public LibraryManager getManager() { return manager; }
+    public CatalogStore getStore() { return store; }
+    public LoanLedger getLedger() { return ledger; }
+
+    public void close() {
+        store.close();
+        ledger.close();
+    }
+}
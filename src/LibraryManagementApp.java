@@ -1,9 +1,29 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 interface Searchable {
     boolean matches(String query);
@@ -16,56 +36,145 @@ interface Rentable {
 interface Displayable {
     String[] toTableRow();
 }
+record Loan(String user, LocalDate date) {}
+record LoanChange(LibraryItem item, Loan previous, Loan current) {}
+
+record OutstandingLoan(LocalDate date, String itemId, String user) implements Comparable<OutstandingLoan> {
+    public int compareTo(OutstandingLoan other) {
+        int byDate = date.compareTo(other.date);
+        return byDate != 0 ? byDate : itemId.compareTo(other.itemId);
+    }
+}
+
+interface ItemObserver {
+    void beforeChange(LibraryItem item);
+    void afterChange(LibraryItem item);
+    void loanChanged(LibraryItem item, Loan previous, Loan current);
+}
+interface LibraryListener {
+    default void itemAdded(LibraryItem item) {}
+    default void itemRemoved(LibraryItem item) {}
+    default void itemChanged(LibraryItem item) {}
+    default void loanChanged(LibraryItem item, Loan previous, Loan current) {}
+
+    default void itemsRemoved(List<LibraryItem> items) {
+        for (LibraryItem item : items) itemRemoved(item);
+    }
+
+    default void loansChanged(List<LoanChange> changes) {
+        for (LoanChange change : changes) {
+            loanChanged(change.item(), change.previous(), change.current());
+            itemChanged(change.item());
+        }
+    }
+}
 
 abstract class LibraryItem implements Searchable, Rentable, Displayable {
     protected String id;
     protected String title;
     protected int year;
-    protected boolean available;
-    protected String rentedBy;
-    protected LocalDate rentDate;
+    private final AtomicReference<Loan> loan = new AtomicReference<>();
+    private volatile ItemObserver observer;
+    int slot = -1;
 
     public LibraryItem(String id, String title, int year) {
         this.id = id;
         this.title = title;
         this.year = year;
-        this.available = true;
     }
 
+    // The transition and its notification share the item's monitor, so observers see
+    // the loans of one item in the order they happened; readers still go lock-free.
     public boolean rent(String userName) {
-        if (!available) return false;
-        available = false;
-        rentedBy = userName;
-        rentDate = LocalDate.now();
+        if (loan.get() != null) return false;
+        Loan rented = new Loan(userName, LocalDate.now());
+        synchronized (this) {
+            if (!loan.compareAndSet(null, rented)) return false;
+            notifyLoanChanged(null, rented);
+        }
         return true;
     }
 
     public boolean returnItem() {
-        if (available) return false;
-        available = true;
-        rentedBy = null;
-        rentDate = null;
+        synchronized (this) {
+            Loan current = loan.get();
+            if (current == null || !loan.compareAndSet(current, null)) return false;
+            notifyLoanChanged(current, null);
+        }
         return true;
     }
 
     public boolean isAvailable() {
-        return available;
+        return loan.get() == null;
     }
 
+    public Loan getLoan() {
+        return loan.get();
+    }
+
+    void restoreLoan(Loan loan) {
+        this.loan.set(loan);
+    }
+
+    void internStrings(StringPool pool) {}
+    void releaseStrings(StringPool pool) {}
+
     public boolean matches(String query) {
         String q = query.toLowerCase();
-        return id.toLowerCase().contains(q) || title.toLowerCase().contains(q);
+        for (String field : getSearchFields()) {
+            if (field.toLowerCase().contains(q)) return true;
+        }
+        return false;
+    }
+
+    public String[] getSearchFields() {
+        return new String[]{ id, title };
+    }
+
+    void setObserver(ItemObserver observer) { this.observer = observer; }
+
+    private void notifyLoanChanged(Loan previous, Loan current) {
+        ItemObserver o = observer;
+        if (o != null) o.loanChanged(this, previous, current);
+    }
+
+    protected void update(Runnable change) {
+        ItemObserver o = observer;
+        if (o == null) {
+            change.run();
+            return;
+        }
+        o.beforeChange(this);
+        try {
+            change.run();
+        } finally {
+            o.afterChange(this);
+        }
     }
 
     public abstract String getType();
+    public abstract String getDetails();
+    public abstract String getStatus();
+
+    public String[] toTableRow() {
+        return new String[]{ id, getType(), title, String.valueOf(year), getDetails(), getStatus(),
+                isAvailable() ? "-" : getRentedBy() };
+    }
 
     public String getId() { return id; }
     public String getTitle() { return title; }
     public int getYear() { return year; }
-    public String getRentedBy() { return rentedBy; }
+    public String getRentedBy() {
+        Loan current = loan.get();
+        return current != null ? current.user() : null;
+    }
+    public LocalDate getRentDate() {
+        Loan current = loan.get();
+        return current != null ? current.date() : null;
+    }
 
-    public void setTitle(String title) { this.title = title; }
-    public void setYear(int year) { this.year = year; }
+    public void setTitle(String title) { update(() -> this.title = title); }
+    public void setYear(int year) { update(() -> this.year = year); }
 }
 
 class Book extends LibraryItem {
@@ -78,19 +187,23 @@ class Book extends LibraryItem {
         this.pages = pages;
     }
     public String getType() { return "Книга"; }
-    public String[] toTableRow() {
-        return new String[]{ id, getType(), title, String.valueOf(year),
-                "Автор: " + author + ", Сторінок: " + pages,
-                available ? "Доступна" : "Орендована",
-                rentedBy != null ? rentedBy : "-" };
+    public String getDetails() { return "Автор: " + author + ", Сторінок: " + pages; }
+    public String getStatus() { return isAvailable() ? "Доступна" : "Орендована"; }
+    public String[] getSearchFields() {
+        return new String[]{ id, title, author };
     }
-    public boolean matches(String query) {
-        return super.matches(query) || author.toLowerCase().contains(query.toLowerCase());
+    void internStrings(StringPool pool) {
+        super.internStrings(pool);
+        author = pool.intern(author);
+    }
+    void releaseStrings(StringPool pool) {
+        super.releaseStrings(pool);
+        pool.release(author);
     }
     public String getAuthor() { return author; }
     public int getPages() { return pages; }
-    public void setAuthor(String author) { this.author = author; }
-    public void setPages(int pages) { this.pages = pages; }
+    public void setAuthor(String author) { update(() -> this.author = author); }
+    public void setPages(int pages) { update(() -> this.pages = pages); }
 }
 
 class Magazine extends LibraryItem {
@@ -103,19 +216,23 @@ class Magazine extends LibraryItem {
         this.publisher = publisher;
     }
     public String getType() { return "Журнал"; }
-    public String[] toTableRow() {
-        return new String[]{ id, getType(), title, String.valueOf(year),
-                "Випуск: " + issueNumber + ", Видавець: " + publisher,
-                available ? "Доступний" : "Орендований",
-                rentedBy != null ? rentedBy : "-" };
+    public String getDetails() { return "Випуск: " + issueNumber + ", Видавець: " + publisher; }
+    public String getStatus() { return isAvailable() ? "Доступний" : "Орендований"; }
+    public String[] getSearchFields() {
+        return new String[]{ id, title, publisher };
     }
-    public boolean matches(String query) {
-        return super.matches(query) || publisher.toLowerCase().contains(query.toLowerCase());
+    void internStrings(StringPool pool) {
+        super.internStrings(pool);
+        publisher = pool.intern(publisher);
+    }
+    void releaseStrings(StringPool pool) {
+        super.releaseStrings(pool);
+        pool.release(publisher);
     }
     public int getIssueNumber() { return issueNumber; }
     public String getPublisher() { return publisher; }
-    public void setIssueNumber(int issueNumber) { this.issueNumber = issueNumber; }
-    public void setPublisher(String publisher) { this.publisher = publisher; }
+    public void setIssueNumber(int issueNumber) { update(() -> this.issueNumber = issueNumber); }
+    public void setPublisher(String publisher) { update(() -> this.publisher = publisher); }
 }
 
 class DVD extends LibraryItem {
@@ -128,113 +245,790 @@ class DVD extends LibraryItem {
         this.duration = duration;
     }
     public String getType() { return "DVD"; }
-    public String[] toTableRow() {
-        return new String[]{ id, getType(), title, String.valueOf(year),
-                "Режисер: " + director + ", Тривалість: " + duration + " хв",
-                available ? "Доступний" : "Орендований",
-                rentedBy != null ? rentedBy : "-" };
+    public String getDetails() { return "Режисер: " + director + ", Тривалість: " + duration + " хв"; }
+    public String getStatus() { return isAvailable() ? "Доступний" : "Орендований"; }
+    public String[] getSearchFields() {
+        return new String[]{ id, title, director };
     }
-    public boolean matches(String query) {
-        return super.matches(query) || director.toLowerCase().contains(query.toLowerCase());
+    void internStrings(StringPool pool) {
+        super.internStrings(pool);
+        director = pool.intern(director);
+    }
+    void releaseStrings(StringPool pool) {
+        super.releaseStrings(pool);
+        pool.release(director);
     }
     public String getDirector() { return director; }
     public int getDuration() { return duration; }
-    public void setDirector(String director) { this.director = director; }
-    public void setDuration(int duration) { this.duration = duration; }
+    public void setDirector(String director) { update(() -> this.director = director); }
+    public void setDuration(int duration) { update(() -> this.duration = duration); }
 }
 
 class Repository<T extends LibraryItem> {
-    private List<T> items;
-    public Repository() { items = new ArrayList<>(); }
-    public void add(T item) { items.add(item); }
-    public boolean remove(String id) {
-        for (int i = 0; i < items.size(); i++) {
-            if (items.get(i).getId().equals(id)) {
-                items.remove(i);
-                return true;
-            }
-        }
-        return false;
+    private Map<String, T> items;
+    private SearchIndex<T> searchIndex;
+    public Repository() {
+        items = new LinkedHashMap<>();
+        searchIndex = new SearchIndex<>();
     }
-    public T findById(String id) {
-        for (T item : items) {
-            if (item.getId().equals(id)) return item;
-        }
-        return null;
+    public int add(T item) {
+        T previous = items.put(item.getId(), item);
+        if (previous != null) searchIndex.remove(previous);
+        return searchIndex.add(item);
+    }
+    public int append(T item) {
+        items.put(item.getId(), item);
+        return searchIndex.append(item);
+    }
+    public boolean remove(String id) {
+        T item = items.remove(id);
+        if (item == null) return false;
+        searchIndex.remove(item);
+        return true;
     }
-    public List<T> getAll() { return new ArrayList<>(items); }
+    public T findById(String id) { return items.get(id); }
+    public Collection<T> getAll() { return Collections.unmodifiableCollection(items.values()); }
+    public int size() { return items.size(); }
     public List<T> search(String query) {
-        List<T> results = new ArrayList<>();
-        for (T item : items) {
-            if (item.matches(query)) results.add(item);
-        }
-        return results;
+        if (query.isEmpty()) return new ArrayList<>(items.values());
+        return searchIndex.search(query);
+    }
+    public List<List<T>> fuzzyCandidates(String query, int minShared) { return searchIndex.candidates(query, minShared); }
+    public List<T> containingAny(List<String> pieces) { return searchIndex.containingAny(pieces); }
+    public int estimate(String query) {
+        return query.isEmpty() ? items.size() : searchIndex.estimate(query);
     }
+    void unindex(T item) { searchIndex.remove(item); }
+    void reindex(T item) { searchIndex.add(item); }
+    void appendPosting(String gram, int[] ids, int count) { searchIndex.appendPosting(gram, ids, count); }
+}
+
+record LibraryStats(int total, int books, int magazines, int dvds, int rented,
+                    Map<String, Integer> rentalsByUser, OutstandingLoan oldestLoan,
+                    SortedMap<Integer, Integer> itemsByYear) {
+    public int available() { return total - rented; }
 }
 
-class LibraryManager {
+enum ItemFilter {
+    ALL("Усі"), BOOKS("Книги"), MAGAZINES("Журнали"), DVDS("DVD"), AVAILABLE("Доступні"), RENTED("Орендовані");
+
+    private final String label;
+    ItemFilter(String label) { this.label = label; }
+    public String toString() { return label; }
+
+    public boolean accepts(LibraryItem item) {
+        return switch (this) {
+            case ALL -> true;
+            case BOOKS -> item instanceof Book;
+            case MAGAZINES -> item instanceof Magazine;
+            case DVDS -> item instanceof DVD;
+            case AVAILABLE -> item.isAvailable();
+            case RENTED -> !item.isAvailable();
+        };
+    }
+}
+
+class LibraryManager implements ItemObserver {
+    static final int PARALLEL_THRESHOLD = 20_000;
+    static final int COMPACT_MIN_SLOTS = 1_024;
+
+    enum Removal { REMOVED, NOT_FOUND, RENTED }
+
     private Repository<Book> bookRepository;
     private Repository<Magazine> magazineRepository;
     private Repository<DVD> dvdRepository;
+    private Map<String, LibraryItem> itemsById;
+    private List<LibraryItem> slots;
+    private BitSet bookSlots;
+    private BitSet magazineSlots;
+    private BitSet dvdSlots;
+    private AtomicBitSet availableSlots;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<LibraryListener> listeners = new CopyOnWriteArrayList<>();
+    private final StringPool stringPool = new StringPool();
+    private final QueryCache queryCache = new QueryCache();
+    private volatile List<LibraryItem> allItemsSnapshot;
+    private final AtomicInteger rentedCount = new AtomicInteger();
+    private final Map<String, Integer> rentalsByUser = new ConcurrentHashMap<>();
+    private final NavigableSet<OutstandingLoan> outstandingLoans = new ConcurrentSkipListSet<>();
+    private final SortedMap<Integer, Integer> itemsByYear = new TreeMap<>();
+    private final Map<LibraryQuery.Field, RangeIndex> rangeIndexes = new EnumMap<>(LibraryQuery.Field.class);
+    private List<LoanChange> batchedLoans;
 
     public LibraryManager() {
         bookRepository = new Repository<>();
         magazineRepository = new Repository<>();
         dvdRepository = new Repository<>();
+        itemsById = new ConcurrentHashMap<>();
+        slots = new ArrayList<>();
+        bookSlots = new BitSet();
+        magazineSlots = new BitSet();
+        dvdSlots = new BitSet();
+        availableSlots = new AtomicBitSet();
+        for (LibraryQuery.Field field : LibraryQuery.Field.values()) rangeIndexes.put(field, new RangeIndex());
+    }
+
+    public boolean addItem(LibraryItem item) {
+        lock.writeLock().lock();
+        try {
+            if (!insert(item)) return false;
+            indexRanges(item);
+            queryCache.invalidate(item, QueryCache.Change.STRUCTURE);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    public void addItem(LibraryItem item) {
-        if (item instanceof Book) bookRepository.add((Book) item);
-        else if (item instanceof Magazine) magazineRepository.add((Magazine) item);
-        else if (item instanceof DVD) dvdRepository.add((DVD) item);
+    public int addAll(Collection<? extends LibraryItem> items) {
+        List<LibraryItem> added = new ArrayList<>(items.size());
+        lock.writeLock().lock();
+        try {
+            for (LibraryItem item : items) {
+                if (insert(item)) added.add(item);
+            }
+            indexRanges(added);
+            if (!added.isEmpty()) queryCache.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return added.size();
     }
 
-    public boolean removeItem(String id) {
-        if (bookRepository.remove(id)) return true;
-        if (magazineRepository.remove(id)) return true;
-        return dvdRepository.remove(id);
+    // Loads a catalog image into an empty manager, one chunk of records per write-lock hold.
+    // The text indexes are filled from the image's stored postings instead of extracting
+    // every item's trigrams again.
+    int hydrate(CatalogImage image, int chunk) {
+        List<LibraryItem> records = image.items();
+        CatalogImage.PostingCursor postings = image.postings();
+        int[] textIds = new int[Math.min(chunk, records.size())];
+        int[][] typed = new int[3][textIds.length];
+        int loaded = 0;
+        for (int from = 0; from < records.size(); from += chunk) {
+            int to = Math.min(records.size(), from + chunk);
+            int first = from;
+            List<LibraryItem> added = new ArrayList<>(to - from);
+            lock.writeLock().lock();
+            try {
+                for (int record = from; record < to; record++) {
+                    LibraryItem item = records.get(record);
+                    textIds[record - from] = insert(item, false);
+                    if (textIds[record - from] >= 0) added.add(item);
+                }
+                indexRanges(added);
+                postings.advance(to, (gram, ids, count) -> {
+                    int books = 0, magazines = 0, dvds = 0;
+                    for (int i = 0; i < count; i++) {
+                        int textId = textIds[ids[i] - first];
+                        if (textId < 0) continue;
+                        LibraryItem item = records.get(ids[i]);
+                        if (item instanceof Book) typed[0][books++] = textId;
+                        else if (item instanceof Magazine) typed[1][magazines++] = textId;
+                        else typed[2][dvds++] = textId;
+                    }
+                    if (books > 0) bookRepository.appendPosting(gram, typed[0], books);
+                    if (magazines > 0) magazineRepository.appendPosting(gram, typed[1], magazines);
+                    if (dvds > 0) dvdRepository.appendPosting(gram, typed[2], dvds);
+                });
+                if (!added.isEmpty()) queryCache.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded += added.size();
+        }
+        return loaded;
+    }
+
+    private boolean insert(LibraryItem item) {
+        return insert(item, true) >= 0;
+    }
+
+    // Returns the item's id in its repository's text index, or -1 if it was not inserted.
+    // Without indexText the item's grams are left to the caller (see hydrate).
+    private int insert(LibraryItem item, boolean indexText) {
+        if (itemsById.containsKey(item.getId())) return -1;
+        if (!(item instanceof Book || item instanceof Magazine || item instanceof DVD)) return -1;
+        item.internStrings(stringPool);
+        Loan restored = item.getLoan();
+        if (restored != null) item.restoreLoan(new Loan(stringPool.lookup(restored.user()), restored.date()));
+        int textId;
+        if (item instanceof Book book) textId = indexText ? bookRepository.add(book) : bookRepository.append(book);
+        else if (item instanceof Magazine magazine) textId = indexText ? magazineRepository.add(magazine) : magazineRepository.append(magazine);
+        else textId = indexText ? dvdRepository.add((DVD) item) : dvdRepository.append((DVD) item);
+        itemsById.put(item.getId(), item);
+        allItemsSnapshot = null;
+        assignSlot(item);
+        itemsByYear.merge(item.getYear(), 1, Integer::sum);
+        Loan loan = item.getLoan();
+        if (loan != null) loanStarted(item, loan);
+        item.setObserver(this);
+        for (LibraryListener listener : listeners) listener.itemAdded(item);
+        return textId;
+    }
+
+    public Removal removeItem(String id) {
+        return remove(id, false);
+    }
+
+    // Journal replay drops records regardless of their loan.
+    boolean discardItem(String id) {
+        return remove(id, true) == Removal.REMOVED;
+    }
+
+    private Removal remove(String id, boolean force) {
+        lock.writeLock().lock();
+        try {
+            LibraryItem item = itemsById.get(id);
+            if (item == null) return Removal.NOT_FOUND;
+            if (!force && !item.isAvailable()) return Removal.RENTED;
+            detach(item);
+            compactSlots();
+            for (LibraryListener listener : listeners) listener.itemRemoved(item);
+            return Removal.REMOVED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void detach(LibraryItem item) {
+        String id = item.getId();
+        itemsById.remove(id);
+        allItemsSnapshot = null;
+        queryCache.invalidate(item, QueryCache.Change.STRUCTURE);
+        item.setObserver(null);
+        item.releaseStrings(stringPool);
+        unindexRanges(item);
+        releaseSlot(item);
+        itemsByYear.computeIfPresent(item.getYear(), (year, count) -> count == 1 ? null : count - 1);
+        Loan loan = item.getLoan();
+        if (loan != null) loanEnded(item, loan);
+        if (item instanceof Book) bookRepository.remove(id);
+        else if (item instanceof Magazine) magazineRepository.remove(id);
+        else dvdRepository.remove(id);
+    }
+
+    // Slots are handed out in insertion order and never reused, so walking them gives the
+    // catalog in the order it was built; compactSlots closes the holes removals leave.
+    private void assignSlot(LibraryItem item) {
+        int slot = slots.size();
+        slots.add(item);
+        item.slot = slot;
+        typeSlots(item).set(slot);
+        availableSlots.set(slot, item.isAvailable());
+    }
+
+    private void releaseSlot(LibraryItem item) {
+        int slot = item.slot;
+        if (slot < 0) return;
+        typeSlots(item).clear(slot);
+        availableSlots.clear(slot);
+        slots.set(slot, null);
+        item.slot = -1;
+    }
+
+    private void compactSlots() {
+        if (slots.size() < COMPACT_MIN_SLOTS || itemsById.size() * 2 > slots.size()) return;
+        List<LibraryItem> live = new ArrayList<>(itemsById.size());
+        for (LibraryItem item : slots) {
+            if (item != null) live.add(item);
+        }
+        slots = live;
+        bookSlots = new BitSet();
+        magazineSlots = new BitSet();
+        dvdSlots = new BitSet();
+        availableSlots = new AtomicBitSet();
+        for (int slot = 0; slot < live.size(); slot++) {
+            LibraryItem item = live.get(slot);
+            item.slot = slot;
+            typeSlots(item).set(slot);
+            availableSlots.set(slot, item.isAvailable());
+        }
+        for (LibraryQuery.Field field : LibraryQuery.Field.values()) rangeIndexes.put(field, new RangeIndex());
+        indexRanges(live);
+    }
+
+    private void indexRanges(LibraryItem item) {
+        for (Map.Entry<LibraryQuery.Field, RangeIndex> entry : rangeIndexes.entrySet()) {
+            if (entry.getKey().appliesTo(item)) entry.getValue().add(entry.getKey().valueOf(item), item.slot);
+        }
+    }
+
+    private void indexRanges(List<LibraryItem> items) {
+        int[] keys = new int[items.size()];
+        int[] itemSlots = new int[items.size()];
+        for (Map.Entry<LibraryQuery.Field, RangeIndex> entry : rangeIndexes.entrySet()) {
+            LibraryQuery.Field field = entry.getKey();
+            int count = 0;
+            for (LibraryItem item : items) {
+                if (!field.appliesTo(item)) continue;
+                keys[count] = field.valueOf(item);
+                itemSlots[count++] = item.slot;
+            }
+            entry.getValue().addAll(keys, itemSlots, count);
+        }
+    }
+
+    private void unindexRanges(LibraryItem item) {
+        for (Map.Entry<LibraryQuery.Field, RangeIndex> entry : rangeIndexes.entrySet()) {
+            if (entry.getKey().appliesTo(item)) entry.getValue().remove(entry.getKey().valueOf(item), item.slot);
+        }
+    }
+
+    private BitSet typeSlots(LibraryItem item) {
+        if (item instanceof Book) return bookSlots;
+        if (item instanceof Magazine) return magazineSlots;
+        return dvdSlots;
+    }
+
+    public void beforeChange(LibraryItem item) {
+        lock.writeLock().lock();
+        queryCache.invalidate(item, QueryCache.Change.FIELDS);
+        item.releaseStrings(stringPool);
+        itemsByYear.computeIfPresent(item.getYear(), (year, count) -> count == 1 ? null : count - 1);
+        unindexRanges(item);
+        if (item instanceof Book) bookRepository.unindex((Book) item);
+        else if (item instanceof Magazine) magazineRepository.unindex((Magazine) item);
+        else if (item instanceof DVD) dvdRepository.unindex((DVD) item);
+    }
+
+    public void afterChange(LibraryItem item) {
+        try {
+            item.internStrings(stringPool);
+            queryCache.invalidate(item, QueryCache.Change.FIELDS);
+            itemsByYear.merge(item.getYear(), 1, Integer::sum);
+            indexRanges(item);
+            if (item instanceof Book) bookRepository.reindex((Book) item);
+            else if (item instanceof Magazine) magazineRepository.reindex((Magazine) item);
+            else if (item instanceof DVD) dvdRepository.reindex((DVD) item);
+            for (LibraryListener listener : listeners) listener.itemChanged(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void loanChanged(LibraryItem item, Loan previous, Loan current) {
+        if (previous != null) loanEnded(item, previous);
+        if (current != null) loanStarted(item, current);
+        int slot = item.slot;
+        if (slot >= 0) availableSlots.set(slot, item.isAvailable());
+        queryCache.invalidate(item, QueryCache.Change.LOAN);
+        if (batchedLoans != null) {
+            batchedLoans.add(new LoanChange(item, previous, current));
+            return;
+        }
+        for (LibraryListener listener : listeners) {
+            listener.loanChanged(item, previous, current);
+            listener.itemChanged(item);
+        }
+    }
+
+    private void loanStarted(LibraryItem item, Loan loan) {
+        stringPool.intern(loan.user());
+        rentedCount.incrementAndGet();
+        rentalsByUser.merge(loan.user(), 1, Integer::sum);
+        outstandingLoans.add(new OutstandingLoan(loan.date(), item.getId(), loan.user()));
+    }
+
+    private void loanEnded(LibraryItem item, Loan loan) {
+        rentedCount.decrementAndGet();
+        rentalsByUser.computeIfPresent(loan.user(), (user, count) -> count == 1 ? null : count - 1);
+        outstandingLoans.remove(new OutstandingLoan(loan.date(), item.getId(), loan.user()));
+        stringPool.release(loan.user());
+    }
+
+    public void addListener(LibraryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(LibraryListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean rent(String id, String userName) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            LibraryItem item = itemsById.get(id);
+            return item != null && item.rent(stringPool.lookup(userName));
+        } finally {
+            lock.readLock().unlock();
+            LibraryMetrics.RENT.record(start);
+        }
+    }
+
+    public boolean returnItem(String id) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            LibraryItem item = itemsById.get(id);
+            return item != null && item.returnItem();
+        } finally {
+            lock.readLock().unlock();
+            LibraryMetrics.RETURN.record(start);
+        }
+    }
+
+    public boolean rentAll(Collection<String> ids, String userName) {
+        long start = System.nanoTime();
+        String user = stringPool.lookup(userName);
+        lock.writeLock().lock();
+        try {
+            List<LibraryItem> items = resolve(ids);
+            if (items == null || !items.stream().allMatch(LibraryItem::isAvailable)) return false;
+            applyLoans(items, item -> item.rent(user));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            LibraryMetrics.RENT.record(start);
+        }
+    }
+
+    public boolean returnAll(Collection<String> ids) {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            List<LibraryItem> items = resolve(ids);
+            if (items == null || items.stream().anyMatch(LibraryItem::isAvailable)) return false;
+            applyLoans(items, LibraryItem::returnItem);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+            LibraryMetrics.RETURN.record(start);
+        }
+    }
+
+    public boolean removeAll(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            List<LibraryItem> items = resolve(ids);
+            if (items == null || !items.stream().allMatch(LibraryItem::isAvailable)) return false;
+            for (LibraryItem item : items) detach(item);
+            compactSlots();
+            for (LibraryListener listener : listeners) listener.itemsRemoved(items);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<LibraryItem> resolve(Collection<String> ids) {
+        List<LibraryItem> items = new ArrayList<>(ids.size());
+        for (String id : new LinkedHashSet<>(ids)) {
+            LibraryItem item = itemsById.get(id);
+            if (item == null) return null;
+            items.add(item);
+        }
+        return items;
+    }
+
+    private void applyLoans(List<LibraryItem> items, Predicate<LibraryItem> action) {
+        List<LoanChange> changes = new ArrayList<>(items.size());
+        batchedLoans = changes;
+        try {
+            for (LibraryItem item : items) action.test(item);
+        } finally {
+            batchedLoans = null;
+        }
+        for (LibraryListener listener : listeners) listener.loansChanged(changes);
     }
 
     public List<LibraryItem> getAllItems() {
-        List<LibraryItem> all = new ArrayList<>();
-        all.addAll(bookRepository.getAll());
-        all.addAll(magazineRepository.getAll());
-        all.addAll(dvdRepository.getAll());
-        return all;
-    }
-    public int getBookCount() { return bookRepository.getAll().size(); }
-    public int getMagazineCount() { return magazineRepository.getAll().size(); }
-    public int getDvdCount() { return dvdRepository.getAll().size(); }
+        List<LibraryItem> snapshot = allItemsSnapshot;
+        if (snapshot != null) return snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = allItemsSnapshot;
+            if (snapshot == null) {
+                List<LibraryItem> all = new ArrayList<>(itemsById.size());
+                collect(bookSlots, all);
+                collect(magazineSlots, all);
+                collect(dvdSlots, all);
+                snapshot = Collections.unmodifiableList(all);
+                allItemsSnapshot = snapshot;
+            }
+            return snapshot;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LibraryItem> findAll(Predicate<? super LibraryItem> predicate) {
+        return findAll(getAllItems(), predicate);
+    }
+
+    private static List<LibraryItem> findAll(List<LibraryItem> items, Predicate<? super LibraryItem> predicate) {
+        Stream<LibraryItem> stream = items.size() >= PARALLEL_THRESHOLD ? items.parallelStream() : items.stream();
+        return stream.filter(predicate).toList();
+    }
+
+    public Stream<LibraryItem> items() {
+        return getAllItems().stream();
+    }
+
+    public List<LibraryItem> getItems(ItemFilter filter) {
+        if (filter == ItemFilter.ALL) return getAllItems();
+        lock.readLock().lock();
+        try {
+            List<LibraryItem> result = new ArrayList<>();
+            switch (filter) {
+                case BOOKS -> collect(bookSlots, result);
+                case MAGAZINES -> collect(magazineSlots, result);
+                case DVDS -> collect(dvdSlots, result);
+                default -> {
+                    BitSet available = availableSlots.snapshot();
+                    for (BitSet type : new BitSet[]{ bookSlots, magazineSlots, dvdSlots }) {
+                        BitSet selected = (BitSet) type.clone();
+                        if (filter == ItemFilter.AVAILABLE) selected.and(available);
+                        else selected.andNot(available);
+                        collect(selected, result);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(BitSet selected, List<LibraryItem> result) {
+        for (int slot = selected.nextSetBit(0); slot >= 0; slot = selected.nextSetBit(slot + 1)) {
+            result.add(slots.get(slot));
+        }
+    }
+
+    private boolean accepts(ItemFilter filter, LibraryItem item) {
+        int slot = item.slot;
+        if (slot < 0) return false;
+        return switch (filter) {
+            case ALL -> true;
+            case BOOKS -> bookSlots.get(slot);
+            case MAGAZINES -> magazineSlots.get(slot);
+            case DVDS -> dvdSlots.get(slot);
+            case AVAILABLE -> availableSlots.get(slot);
+            case RENTED -> !availableSlots.get(slot);
+        };
+    }
+
+    public int getBookCount() { return count(bookRepository); }
+    public int getMagazineCount() { return count(magazineRepository); }
+    public int getDvdCount() { return count(dvdRepository); }
+
+    private int count(Repository<?> repository) {
+        lock.readLock().lock();
+        try {
+            return repository.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public QueryCache getQueryCache() { return queryCache; }
+    public int getTotalCount() { return itemsById.size(); }
+    public int getRentedCount() { return rentedCount.get(); }
+    public int getRentalCount(String user) { return rentalsByUser.getOrDefault(user, 0); }
+    public OutstandingLoan getOldestLoan() {
+        return outstandingLoans.isEmpty() ? null : outstandingLoans.first();
+    }
+
+    public LibraryStats getStatistics() {
+        lock.readLock().lock();
+        try {
+            return new LibraryStats(getTotalCount(), getBookCount(), getMagazineCount(), getDvdCount(),
+                    getRentedCount(), Map.copyOf(rentalsByUser), getOldestLoan(), new TreeMap<>(itemsByYear));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
     public List<LibraryItem> searchAll(String query) {
-        List<LibraryItem> all = new ArrayList<>();
-        all.addAll(bookRepository.search(query));
-        all.addAll(magazineRepository.search(query));
-        all.addAll(dvdRepository.search(query));
-        return all;
+        return searchAll(query, ItemFilter.ALL);
+    }
+    public List<LibraryItem> searchAll(String query, ItemFilter filter) {
+        long start = System.nanoTime();
+        try {
+            if (query.isEmpty() && filter == ItemFilter.ALL) return getAllItems();
+            List<LibraryItem> cached = queryCache.get(query, filter);
+            if (cached != null) return cached;
+            long version = queryCache.version(filter);
+            List<LibraryItem> result = query.isEmpty() ? getItems(filter) : search(query, filter);
+            return queryCache.put(query, filter, result, version);
+        } finally {
+            LibraryMetrics.SEARCH_ALL.record(start);
+        }
+    }
+
+    private List<LibraryItem> search(String query, ItemFilter filter) {
+        lock.readLock().lock();
+        try {
+            List<LibraryItem> all = new ArrayList<>();
+            if (filter != ItemFilter.MAGAZINES && filter != ItemFilter.DVDS) all.addAll(bookRepository.search(query));
+            if (filter != ItemFilter.BOOKS && filter != ItemFilter.DVDS) all.addAll(magazineRepository.search(query));
+            if (filter != ItemFilter.BOOKS && filter != ItemFilter.MAGAZINES) all.addAll(dvdRepository.search(query));
+            if (filter == ItemFilter.AVAILABLE || filter == ItemFilter.RENTED) {
+                all.removeIf(item -> !accepts(filter, item));
+            }
+            all.sort(Comparator.comparingInt(item -> item.slot));
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public List<LibraryItem> fuzzySearch(String query, ItemFilter filter, int limit) {
+        long start = System.nanoTime();
+        FuzzySearch search = new FuzzySearch(query, limit);
+        lock.readLock().lock();
+        try {
+            List<List<LibraryItem>> levels = new ArrayList<>();
+            int minShared = search.getMinSharedGrams();
+            if (filter != ItemFilter.MAGAZINES && filter != ItemFilter.DVDS) mergeLevels(levels, bookRepository.fuzzyCandidates(query, minShared));
+            if (filter != ItemFilter.BOOKS && filter != ItemFilter.DVDS) mergeLevels(levels, magazineRepository.fuzzyCandidates(query, minShared));
+            if (filter != ItemFilter.BOOKS && filter != ItemFilter.MAGAZINES) mergeLevels(levels, dvdRepository.fuzzyCandidates(query, minShared));
+            levels:
+            for (int shared = levels.size() - 1; shared >= Math.max(1, minShared); shared--) {
+                for (LibraryItem item : levels.get(shared)) {
+                    if (search.isSettled(shared)) break levels;
+                    if (filter.accepts(item)) search.offer(item);
+                }
+            }
+            if (minShared == 0 && !search.isSettled(0)) {
+                List<String> pieces = search.getPieces();
+                List<LibraryItem> fallback = new ArrayList<>();
+                if (filter != ItemFilter.MAGAZINES && filter != ItemFilter.DVDS) fallback.addAll(bookRepository.containingAny(pieces));
+                if (filter != ItemFilter.BOOKS && filter != ItemFilter.DVDS) fallback.addAll(magazineRepository.containingAny(pieces));
+                if (filter != ItemFilter.BOOKS && filter != ItemFilter.MAGAZINES) fallback.addAll(dvdRepository.containingAny(pieces));
+                for (LibraryItem item : fallback) {
+                    if (filter.accepts(item)) search.offer(item);
+                }
+            }
+            return search.results();
+        } finally {
+            lock.readLock().unlock();
+            LibraryMetrics.FUZZY_SEARCH.record(start);
+        }
+    }
+
+    private static void mergeLevels(List<List<LibraryItem>> levels, List<? extends List<? extends LibraryItem>> more) {
+        for (int shared = 0; shared < more.size(); shared++) {
+            if (shared == levels.size()) levels.add(new ArrayList<>());
+            levels.get(shared).addAll(more.get(shared));
+        }
+    }
+
+    public List<LibraryItem> query(LibraryQuery query) {
+        if (query.getRanges().isEmpty()) return searchAll(query.getText(), query.getFilter());
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            LibraryQuery.Range best = null;
+            int bestCount = Integer.MAX_VALUE;
+            for (LibraryQuery.Range range : query.getRanges()) {
+                int count = rangeIndexes.get(range.field()).count(range.from(), range.to());
+                if (count < bestCount) {
+                    best = range;
+                    bestCount = count;
+                }
+            }
+            if (bestCount == 0) return new ArrayList<>();
+            String text = query.getText();
+            if (!text.isEmpty() && estimate(text, query.getFilter()) < bestCount) {
+                return findAll(search(text, query.getFilter()), query::test);
+            }
+            int[] selected = rangeIndexes.get(best.field()).select(best.from(), best.to());
+            Arrays.sort(selected);
+            BitSet type = switch (query.getFilter()) {
+                case BOOKS -> bookSlots;
+                case MAGAZINES -> magazineSlots;
+                case DVDS -> dvdSlots;
+                default -> null;
+            };
+            List<LibraryItem> candidates = new ArrayList<>(selected.length);
+            for (int slot : selected) {
+                if (type == null || type.get(slot)) candidates.add(slots.get(slot));
+            }
+            return findAll(candidates, query::test);
+        } finally {
+            lock.readLock().unlock();
+            LibraryMetrics.QUERY.record(start);
+        }
     }
+
+    private int estimate(String query, ItemFilter filter) {
+        int estimate = 0;
+        if (filter != ItemFilter.MAGAZINES && filter != ItemFilter.DVDS) estimate += bookRepository.estimate(query);
+        if (filter != ItemFilter.BOOKS && filter != ItemFilter.DVDS) estimate += magazineRepository.estimate(query);
+        if (filter != ItemFilter.BOOKS && filter != ItemFilter.MAGAZINES) estimate += dvdRepository.estimate(query);
+        return estimate;
+    }
+
     public LibraryItem findById(String id) {
-        LibraryItem item = bookRepository.findById(id);
-        if (item != null) return item;
-        item = magazineRepository.findById(id);
-        if (item != null) return item;
-        return dvdRepository.findById(id);
+        long start = System.nanoTime();
+        LibraryItem item = itemsById.get(id);
+        LibraryMetrics.FIND_BY_ID.record(start);
+        return item;
     }
 }
 
 public class LibraryManagementApp extends JFrame {
+    private static final int MAX_INCREMENTAL_CHANGES = 10_000;
+    private static final int FUZZY_LIMIT = 200;
+
     private LibraryManager manager;
+    private LibraryContext context;
+    private LoanLedger ledger;
     private JTable table;
-    private DefaultTableModel tableModel;
+    private LibraryTableModel tableModel;
     private JTextField searchField;
-    private JComboBox<String> filterCombo;
+    private JComboBox<ItemFilter> filterCombo;
+    private JCheckBox fuzzyCheck;
+    private JLabel statusLabel;
+    private javax.swing.Timer searchDebounce;
+    private final ExecutorService backgroundExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Future<?> pendingQuery;
+    private long queryGeneration;
+    private long publishedGeneration;
+    private String viewQuery = "";
+    private ItemFilter viewFilter = ItemFilter.ALL;
+    private FuzzySearch viewFuzzy;
+    private final List<LibraryItem> changedDuringQuery = new ArrayList<>();
+    private final Queue<LibraryItem> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private boolean loading = true;
+    private CatalogImage loadingImage;
 
     public LibraryManagementApp() {
-        manager = new LibraryManager();
-        initData();
+        context = new LibraryContext(LibraryContext.defaultDataDirectory());
+        manager = context.getManager();
+        ledger = context.getLedger();
+        CatalogImage image = null;
+        try {
+            image = context.getStore().mapImage();
+        } catch (IOException ex) {
+            System.err.println("Не вдалося відкрити образ каталогу: " + ex.getMessage());
+        }
+        loadingImage = image;
         setupUI();
+        if (image != null) tableModel.setItems(image.items());
+        statusLabel.setText("Завантаження каталогу...");
+        backgroundExecutor.submit(this::loadCatalog);
+    }
+
+    private void loadCatalog() {
+        try {
+            if (!context.open()) initData(manager);
+        } catch (IOException | UncheckedIOException ex) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Не вдалося завантажити каталог: " + ex.getMessage(), "Помилка", JOptionPane.ERROR_MESSAGE));
+            initData(manager);
+        }
+        SwingUtilities.invokeLater(() -> {
+            loading = false;
+            loadingImage = null;
+            statusLabel.setText(" ");
+            refreshTable();
+        });
+        ledger.startMonitor(overdue -> SwingUtilities.invokeLater(() ->
+                statusLabel.setText("Прострочених оренд: " + ledger.overdue(LocalDate.now()).size())));
     }
 
-    private void initData() {
+    static void initData(LibraryManager manager) {
         manager.addItem(new Book("B001", "Дім у волошковому морі", 2023, "Т. Дж. Клюн", 400));
         manager.addItem(new Book("B002", "Крёстный отец»", 1969, "Марио Пьюзо", 608));
         manager.addItem(new Book("B003", "Гаррі Поттер", 1997, "Дж. Роулінг", 350));
@@ -259,13 +1053,17 @@ public class LibraryManagementApp extends JFrame {
         JButton clearSearchBtn = new JButton("Очистити");
         topPanel.add(clearSearchBtn);
         topPanel.add(new JLabel("Фільтр:"));
-        filterCombo = new JComboBox<>(new String[]{"Усі", "Книги", "Журнали", "DVD", "Доступні", "Орендовані"});
+        filterCombo = new JComboBox<>(ItemFilter.values());
         topPanel.add(filterCombo);
+        fuzzyCheck = new JCheckBox("Нечіткий пошук");
+        topPanel.add(fuzzyCheck);
+        statusLabel = new JLabel(" ");
+        topPanel.add(statusLabel);
         add(topPanel, BorderLayout.NORTH);
 
-        String[] columns = {"ID", "Тип", "Назва", "Рік", "Додатково", "Статус", "Орендовано"};
-        tableModel = new DefaultTableModel(columns, 0) { public boolean isCellEditable(int r, int c) { return false; } };
+        tableModel = new LibraryTableModel();
         table = new JTable(tableModel);
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         JScrollPane scrollPane = new JScrollPane(table);
         add(scrollPane, BorderLayout.CENTER);
 
@@ -277,6 +1075,9 @@ public class LibraryManagementApp extends JFrame {
         JButton removeBtn = new JButton("Видалити");
         JButton refreshBtn = new JButton("Оновити");
         JButton statsBtn = new JButton("Статистика");
+        JButton historyBtn = new JButton("Історія");
+        JButton importBtn = new JButton("Імпорт");
+        JButton exportBtn = new JButton("Експорт");
 
         bottomPanel.add(rentBtn);
         bottomPanel.add(returnBtn);
@@ -285,55 +1086,125 @@ public class LibraryManagementApp extends JFrame {
         bottomPanel.add(removeBtn);
         bottomPanel.add(refreshBtn);
         bottomPanel.add(statsBtn);
+        bottomPanel.add(historyBtn);
+        bottomPanel.add(importBtn);
+        bottomPanel.add(exportBtn);
         add(bottomPanel, BorderLayout.SOUTH);
 
-        searchBtn.addActionListener(e -> {
-            String query = searchField.getText().trim();
-            if (query.isEmpty()) refreshTable();
-            else filterTable(manager.searchAll(query));
+        searchDebounce = new javax.swing.Timer(250, e -> refreshTable());
+        searchDebounce.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { searchDebounce.restart(); }
+            public void removeUpdate(DocumentEvent e) { searchDebounce.restart(); }
+            public void changedUpdate(DocumentEvent e) { searchDebounce.restart(); }
         });
+        searchBtn.addActionListener(e -> refreshTable());
         clearSearchBtn.addActionListener(e -> {
             searchField.setText("");
             filterCombo.setSelectedIndex(0);
+            fuzzyCheck.setSelected(false);
             refreshTable();
         });
         rentBtn.addActionListener(e -> rentSelectedItem());
         returnBtn.addActionListener(e -> returnSelectedItem());
         refreshBtn.addActionListener(e -> { searchField.setText(""); filterCombo.setSelectedIndex(0); refreshTable(); });
 
-        addBtn.addActionListener(e -> showItemDialog(null));
+        addBtn.addActionListener(e -> {
+            if (catalogReady()) showItemDialog(null);
+        });
         editBtn.addActionListener(e -> {
-            LibraryItem selected = getSelectedItem();
+            LibraryItem selected = catalogReady() ? getSelectedItem() : null;
             if (selected != null) showItemDialog(selected);
         });
         removeBtn.addActionListener(e -> removeSelectedItem());
 
         statsBtn.addActionListener(e -> showStatistics());
+        historyBtn.addActionListener(e -> showHistory());
+        importBtn.addActionListener(e -> importCatalog());
+        exportBtn.addActionListener(e -> exportCatalog());
         searchField.addActionListener(e -> searchBtn.doClick());
-        filterCombo.addActionListener(e -> {
-            String selected = (String) filterCombo.getSelectedItem();
-            List<LibraryItem> filtered = manager.getAllItems();
-            List<LibraryItem> result = new ArrayList<>();
-            switch (selected) {
-                case "Книги" -> { for (LibraryItem i : filtered) if (i instanceof Book) result.add(i); }
-                case "Журнали" -> { for (LibraryItem i : filtered) if (i instanceof Magazine) result.add(i); }
-                case "DVD" -> { for (LibraryItem i : filtered) if (i instanceof DVD) result.add(i); }
-                case "Доступні" -> { for (LibraryItem i : filtered) if (i.isAvailable()) result.add(i); }
-                case "Орендовані" -> { for (LibraryItem i : filtered) if (!i.isAvailable()) result.add(i); }
-                default -> result = filtered;
+        filterCombo.addActionListener(e -> refreshTable());
+        fuzzyCheck.addActionListener(e -> refreshTable());
+        manager.addListener(new LibraryListener() {
+            public void itemAdded(LibraryItem item) { enqueueChanges(List.of(item)); }
+            public void itemRemoved(LibraryItem item) { enqueueChanges(List.of(item)); }
+            public void itemChanged(LibraryItem item) { enqueueChanges(List.of(item)); }
+            public void itemsRemoved(List<LibraryItem> items) { enqueueChanges(items); }
+            public void loansChanged(List<LoanChange> changes) {
+                enqueueChanges(changes.stream().map(LoanChange::item).toList());
             }
-            filterTable(result);
         });
         refreshTable();
     }
 
+    private void enqueueChanges(Collection<LibraryItem> items) {
+        pendingChanges.addAll(items);
+        if (drainScheduled.compareAndSet(false, true)) SwingUtilities.invokeLater(() -> drainChanges());
+    }
+
+    private void drainChanges() {
+        drainScheduled.set(false);
+        List<LibraryItem> changed = new ArrayList<>();
+        for (LibraryItem item = pendingChanges.poll(); item != null; item = pendingChanges.poll()) changed.add(item);
+        if (loading) return;
+        if (changed.size() > MAX_INCREMENTAL_CHANGES) {
+            refreshTable();
+            return;
+        }
+        if (publishedGeneration != queryGeneration) changedDuringQuery.addAll(changed);
+        for (LibraryItem item : changed) applyChange(item);
+    }
+
+    private void applyChange(LibraryItem item) {
+        boolean visible = manager.findById(item.getId()) == item && viewFilter.accepts(item)
+                && (viewQuery.isEmpty() || (viewFuzzy != null ? viewFuzzy.score(item) > 0 : item.matches(viewQuery)));
+        int row = tableModel.rowOf(item);
+        if (row >= 0 && visible) tableModel.updateRow(row);
+        else if (row >= 0) tableModel.removeRow(row);
+        else if (visible && viewFuzzy == null) tableModel.addRow(item);
+        if (viewFuzzy != null && (row >= 0 || visible)) searchDebounce.restart();
+    }
+
     private void refreshTable() {
-        filterTable(manager.getAllItems());
+        searchDebounce.stop();
+        // Until hydration finishes, searches are served from the image's stored postings.
+        CatalogImage image = loading ? loadingImage : null;
+        if (loading && image == null) return;
+        String query = searchField.getText().trim();
+        ItemFilter filter = (ItemFilter) filterCombo.getSelectedItem();
+        boolean fuzzy = image == null && fuzzyCheck.isSelected() && !query.isEmpty();
+        long generation = ++queryGeneration;
+        long start = System.nanoTime();
+        if (pendingQuery != null) pendingQuery.cancel(true);
+        changedDuringQuery.clear();
+        pendingQuery = backgroundExecutor.submit(() -> {
+            List<LibraryItem> result = image != null ? image.search(query, filter)
+                    : fuzzy ? manager.fuzzySearch(query, filter, FUZZY_LIMIT) : manager.searchAll(query, filter);
+            if (Thread.currentThread().isInterrupted()) return;
+            SwingUtilities.invokeLater(() -> {
+                if (generation != queryGeneration) return;
+                publishedGeneration = generation;
+                viewQuery = query;
+                viewFilter = filter;
+                viewFuzzy = fuzzy ? new FuzzySearch(query, FUZZY_LIMIT) : null;
+                filterTable(result);
+                for (LibraryItem item : changedDuringQuery) applyChange(item);
+                changedDuringQuery.clear();
+                LibraryMetrics.REFRESH_TABLE.record(start);
+            });
+        });
     }
 
     private void filterTable(List<LibraryItem> items) {
-        tableModel.setRowCount(0);
-        for (LibraryItem i : items) tableModel.addRow(i.toTableRow());
+        long start = System.nanoTime();
+        long allocations = LibraryMetrics.FILTER_TABLE.startAllocations();
+        tableModel.setItems(items);
+        LibraryMetrics.FILTER_TABLE.record(start, allocations);
+    }
+
+    private boolean catalogReady() {
+        if (loading) JOptionPane.showMessageDialog(this, "Каталог ще завантажується, зачекайте", "Помилка", JOptionPane.WARNING_MESSAGE);
+        return !loading;
     }
 
     private LibraryItem getSelectedItem() {
@@ -342,61 +1213,96 @@ public class LibraryManagementApp extends JFrame {
             JOptionPane.showMessageDialog(this, "Будь ласка, спочатку виберіть елемент у таблиці", "Помилка", JOptionPane.WARNING_MESSAGE);
             return null;
         }
-        String id = (String) tableModel.getValueAt(row, 0);
-        return manager.findById(id);
+        return tableModel.getItemAt(table.convertRowIndexToModel(row));
+    }
+
+    private List<LibraryItem> getSelectedItems() {
+        int[] rows = table.getSelectedRows();
+        if (rows.length == 0) {
+            JOptionPane.showMessageDialog(this, "Будь ласка, спочатку виберіть елемент у таблиці", "Помилка", JOptionPane.WARNING_MESSAGE);
+            return List.of();
+        }
+        List<LibraryItem> items = new ArrayList<>(rows.length);
+        for (int row : rows) items.add(tableModel.getItemAt(table.convertRowIndexToModel(row)));
+        return items;
+    }
+
+    private static List<String> idsOf(List<LibraryItem> items) {
+        return items.stream().map(LibraryItem::getId).toList();
     }
 
     private void rentSelectedItem() {
-        LibraryItem item = getSelectedItem();
-        if (item == null) return;
+        if (!catalogReady()) return;
+        List<LibraryItem> items = getSelectedItems();
+        if (items.isEmpty()) return;
 
-        if (!item.isAvailable()) {
-            JOptionPane.showMessageDialog(this, "Цей елемент вже орендовано користувачем: " + item.getRentedBy());
+        List<LibraryItem> rented = items.stream().filter(item -> !item.isAvailable()).toList();
+        if (!rented.isEmpty()) {
+            JOptionPane.showMessageDialog(this, items.size() == 1
+                    ? "Цей елемент вже орендовано користувачем: " + rented.get(0).getRentedBy()
+                    : "Вже орендовано: " + String.join(", ", idsOf(rented)));
             return;
         }
         String user = JOptionPane.showInputDialog(this, "Введіть ім'я користувача:");
         if (user != null && !user.trim().isEmpty()) {
-            item.rent(user.trim());
-            JOptionPane.showMessageDialog(this, "Елемент успішно орендовано!");
-            refreshTable();
+            if (manager.rentAll(idsOf(items), user.trim())) {
+                JOptionPane.showMessageDialog(this, items.size() == 1 ? "Елемент успішно орендовано!" : "Орендовано елементів: " + items.size());
+            } else {
+                JOptionPane.showMessageDialog(this, "Деякі елементи вже орендовано або видалено. Нічого не змінено.");
+            }
         }
     }
 
     private void returnSelectedItem() {
-        LibraryItem item = getSelectedItem();
-        if (item == null) return;
+        if (!catalogReady()) return;
+        List<LibraryItem> items = getSelectedItems();
+        if (items.isEmpty()) return;
 
-        if (item.isAvailable()) {
-            JOptionPane.showMessageDialog(this, "Цей елемент не орендовано", "Помилка", JOptionPane.WARNING_MESSAGE);
+        List<LibraryItem> available = items.stream().filter(LibraryItem::isAvailable).toList();
+        if (!available.isEmpty()) {
+            JOptionPane.showMessageDialog(this, items.size() == 1
+                    ? "Цей елемент не орендовано"
+                    : "Не орендовано: " + String.join(", ", idsOf(available)), "Помилка", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        int conf = JOptionPane.showConfirmDialog(this, "Повернути елемент, орендований користувачем: " + item.getRentedBy() + "?", "Підтвердження", JOptionPane.YES_NO_OPTION);
+        String question = items.size() == 1
+                ? "Повернути елемент, орендований користувачем: " + items.get(0).getRentedBy() + "?"
+                : "Повернути елементів: " + items.size() + "?";
+        int conf = JOptionPane.showConfirmDialog(this, question, "Підтвердження", JOptionPane.YES_NO_OPTION);
         if (conf == JOptionPane.YES_OPTION) {
-            item.returnItem();
-            JOptionPane.showMessageDialog(this, "Елемент повернено!");
-            refreshTable();
+            if (manager.returnAll(idsOf(items))) {
+                JOptionPane.showMessageDialog(this, items.size() == 1 ? "Елемент повернено!" : "Повернено елементів: " + items.size());
+            } else {
+                JOptionPane.showMessageDialog(this, "Деякі елементи не орендовано або видалено. Нічого не змінено.", "Помилка", JOptionPane.WARNING_MESSAGE);
+            }
         }
     }
 
     private void removeSelectedItem() {
-        LibraryItem item = getSelectedItem();
-        if (item == null) return;
+        if (!catalogReady()) return;
+        List<LibraryItem> items = getSelectedItems();
+        if (items.isEmpty()) return;
 
-        if (!item.isAvailable()) {
+        if (items.stream().anyMatch(item -> !item.isAvailable())) {
             JOptionPane.showMessageDialog(this, "Неможливо видалити орендований елемент. Спочатку поверніть його.", "Помилка", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
+        String question = items.size() == 1
+                ? "Ви впевнені, що хочете видалити:\n" + items.get(0).getTitle() + " (ID: " + items.get(0).getId() + ")?"
+                : "Ви впевнені, що хочете видалити елементів: " + items.size() + "?";
         int conf = JOptionPane.showConfirmDialog(this,
-                "Ви впевнені, що хочете видалити:\n" + item.getTitle() + " (ID: " + item.getId() + ")?",
+                question,
                 "Підтвердження видалення",
                 JOptionPane.YES_NO_OPTION,
                 JOptionPane.WARNING_MESSAGE);
 
         if (conf == JOptionPane.YES_OPTION) {
-            manager.removeItem(item.getId());
-            refreshTable();
-            JOptionPane.showMessageDialog(this, "Елемент видалено.", "Успіх", JOptionPane.INFORMATION_MESSAGE);
+            if (manager.removeAll(idsOf(items))) {
+                JOptionPane.showMessageDialog(this, items.size() == 1 ? "Елемент видалено." : "Видалено елементів: " + items.size(), "Успіх", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Деякі елементи орендовано або вже видалено. Нічого не змінено.", "Помилка", JOptionPane.WARNING_MESSAGE);
+            }
         }
     }
 
@@ -507,9 +1413,6 @@ public class LibraryManagementApp extends JFrame {
                     JOptionPane.showMessageDialog(this, "Елемент успішно оновлено!", "Успіх", JOptionPane.INFORMATION_MESSAGE);
 
                 } else {
-                    if (manager.findById(id) != null) {
-                        throw new IllegalArgumentException("Елемент з таким ID вже існує");
-                    }
                     LibraryItem newItem = null;
                     switch (type) {
                         case "Книга" -> {
@@ -526,13 +1429,12 @@ public class LibraryManagementApp extends JFrame {
                         }
                     }
                     if (newItem != null) {
-                        manager.addItem(newItem);
+                        if (!manager.addItem(newItem)) {
+                            throw new IllegalArgumentException("Елемент з таким ID вже існує");
+                        }
                         JOptionPane.showMessageDialog(this, "Елемент успішно додано!", "Успіх", JOptionPane.INFORMATION_MESSAGE);
                     }
                 }
-
-                refreshTable();
-
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "Помилка: 'Рік', 'Сторінки', 'Номер випуску' або 'Тривалість' мають бути числами.", "Помилка вводу", JOptionPane.ERROR_MESSAGE);
             } catch (IllegalArgumentException ex) {
@@ -541,21 +1443,83 @@ public class LibraryManagementApp extends JFrame {
         }
     }
 
-    private void showStatistics() {
-        List<LibraryItem> allItems = manager.getAllItems();
-        int total = allItems.size();
-        int rented = 0;
-        for (LibraryItem item : allItems) {
-            if (!item.isAvailable()) {
-                rented++;
+    private JFileChooser catalogChooser() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Каталог (CSV, JSON)", "csv", "json"));
+        return chooser;
+    }
+
+    private void importCatalog() {
+        if (!catalogReady()) return;
+        JFileChooser chooser = catalogChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+        statusLabel.setText("Імпорт...");
+        backgroundExecutor.submit(() -> {
+            try {
+                CatalogTransfer.ImportReport report = CatalogTransfer.importCatalog(file, manager,
+                        processed -> SwingUtilities.invokeLater(() -> statusLabel.setText("Оброблено записів: " + processed)));
+                SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText(" ");
+                    JOptionPane.showMessageDialog(this,
+                            "Імпортовано: " + report.imported() + "\nПропущено: " + report.skipped(),
+                            "Імпорт", JOptionPane.INFORMATION_MESSAGE);
+                });
+            } catch (IOException | RuntimeException ex) {
+                SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText(" ");
+                    JOptionPane.showMessageDialog(this, "Помилка імпорту: " + ex.getMessage(), "Помилка", JOptionPane.ERROR_MESSAGE);
+                });
             }
+        });
+    }
+
+    private void exportCatalog() {
+        if (!catalogReady()) return;
+        JFileChooser chooser = catalogChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path selected = chooser.getSelectedFile().toPath();
+        String name = selected.getFileName().toString().toLowerCase();
+        Path file = name.endsWith(".csv") || name.endsWith(".json") ? selected : selected.resolveSibling(selected.getFileName() + ".csv");
+        statusLabel.setText("Експорт...");
+        backgroundExecutor.submit(() -> {
+            try {
+                long count = CatalogTransfer.exportCatalog(file, manager);
+                SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText(" ");
+                    JOptionPane.showMessageDialog(this, "Експортовано елементів: " + count, "Експорт", JOptionPane.INFORMATION_MESSAGE);
+                });
+            } catch (IOException | RuntimeException ex) {
+                SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText(" ");
+                    JOptionPane.showMessageDialog(this, "Помилка експорту: " + ex.getMessage(), "Помилка", JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        });
+    }
+
+    private void showHistory() {
+        LibraryItem item = getSelectedItem();
+        if (item == null) return;
+
+        List<LoanLedger.LoanEvent> events = ledger.historyForItem(item.getId());
+        StringBuilder message = new StringBuilder("Історія оренд: " + item.getTitle() + " (ID: " + item.getId() + ")\n\n");
+        if (events.isEmpty()) message.append("Оренд ще не було.\n");
+        for (LoanLedger.LoanEvent event : events) {
+            message.append(String.format("%s  %s  %s\n", event.date(),
+                    event.kind() == LoanLedger.Kind.RENT ? "Орендовано" : "Повернено", event.user()));
         }
-        int available = total - rented;
-        int books = manager.getBookCount();
-        int magazines = manager.getMagazineCount();
-        int dvds = manager.getDvdCount();
+        Loan loan = item.getLoan();
+        if (loan != null) {
+            message.append("\nПовернути до: ").append(loan.date().plusDays(LoanLedger.LOAN_DAYS));
+        }
+        JOptionPane.showMessageDialog(this, message.toString(), "Історія", JOptionPane.INFORMATION_MESSAGE);
+    }
 
-        String message = String.format(
+    private void showStatistics() {
+        LibraryStats stats = manager.getStatistics();
+
+        StringBuilder message = new StringBuilder(String.format(
                 "--- Загальна статистика бібліотеки ---\n\n" +
                         "Всього елементів: %d\n" +
                         "   - Книги: %d\n" +
@@ -564,12 +1528,68 @@ public class LibraryManagementApp extends JFrame {
                         "--- Статус --- \n" +
                         "Доступно: %d\n" +
                         "Орендовано: %d\n",
-                total, books, magazines, dvds, available, rented
-        );
-        JOptionPane.showMessageDialog(this, message, "Статистика", JOptionPane.INFORMATION_MESSAGE);
+                stats.total(), stats.books(), stats.magazines(), stats.dvds(), stats.available(), stats.rented()
+        ));
+        message.append(String.format("Прострочено: %d\n", ledger.overdue(LocalDate.now()).size()));
+        OutstandingLoan oldest = stats.oldestLoan();
+        if (oldest != null) {
+            message.append(String.format("Найдовша оренда: %s (%s, з %s)\n", oldest.itemId(), oldest.user(), oldest.date()));
+        }
+        if (!stats.rentalsByUser().isEmpty()) {
+            message.append("\n--- Оренди за користувачами ---\n");
+            stats.rentalsByUser().entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(10)
+                    .forEach(e -> message.append(String.format("%s: %d\n", e.getKey(), e.getValue())));
+        }
+        if (!stats.itemsByYear().isEmpty()) {
+            message.append("\n--- Розподіл за десятиліттями ---\n");
+            SortedMap<Integer, Integer> byDecade = new TreeMap<>();
+            stats.itemsByYear().forEach((year, count) -> byDecade.merge(Math.floorDiv(year, 10) * 10, count, Integer::sum));
+            byDecade.forEach((decade, count) -> message.append(String.format("%d-ті: %d\n", decade, count)));
+        }
+        QueryCache cache = manager.getQueryCache();
+        message.append(String.format("\nКеш запитів: записів %d, влучань %d, промахів %d\n",
+                cache.size(), cache.getHits(), cache.getMisses()));
+        message.append("\n--- Продуктивність ---\n").append(LibraryMetrics.dump());
+        JTextArea text = new JTextArea(message.toString());
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JScrollPane scroll = new JScrollPane(text);
+        scroll.setPreferredSize(new Dimension(720, 480));
+        JOptionPane.showMessageDialog(this, scroll, "Статистика", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : LibraryServer.DEFAULT_PORT;
+            LibraryContext context = new LibraryContext(LibraryContext.defaultDataDirectory());
+            if (!context.open()) initData(context.getManager());
+            InetAddress address = args.length > 2 ? InetAddress.getByName(args[2]) : InetAddress.getLoopbackAddress();
+            LibraryServer server = new LibraryServer(context.getManager(), address, port);
+            server.start();
+            System.out.println("Сервер бібліотеки запущено: http://" + address.getHostAddress() + ":" + server.getPort() + "/items");
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--shard-node")) {
+            // Each node owns its own journal and image; nodes sharing a directory would each load the whole catalog.
+            int port = Integer.parseInt(args[1]);
+            Path directory = args.length > 2 ? Path.of(args[2]) : LibraryContext.defaultDataDirectory().resolve("shard-" + port);
+            LibraryContext context = new LibraryContext(directory);
+            context.open();
+            ShardServer node = new ShardServer(context.getManager(), port);
+            node.start();
+            System.out.println("Вузол бібліотеки запущено на порту " + node.getPort() + " (дані: " + directory + ")");
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--build-image")) {
+            Path directory = args.length > 1 ? Path.of(args[1]) : LibraryContext.defaultDataDirectory();
+            try (LibraryContext context = new LibraryContext(directory)) {
+                if (!context.open()) initData(context.getManager());
+                System.out.println("Образ каталогу: " + context.getManager().getTotalCount() + " елементів");
+            }
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             try { UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName()); } catch (Exception ignored) {}
             LibraryManagementApp app = new LibraryManagementApp();
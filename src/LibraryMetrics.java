@@ -0,0 +1,169 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class LibraryMetrics {
+    private static final List<Operation> OPERATIONS = Collections.synchronizedList(new ArrayList<>());
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    // Per-thread allocation counters do not exist for virtual threads, and searches run on
+    // them (UI background work, HTTP and shard requests). Only the table refresh, which runs
+    // on the event thread, is sampled per call; dump() adds the JVM-wide allocation total.
+    static final Operation SEARCH_ALL = register("searchAll", false);
+    static final Operation FUZZY_SEARCH = register("fuzzySearch", false);
+    static final Operation QUERY = register("query", false);
+    static final Operation FIND_BY_ID = register("findById", false);
+    static final Operation RENT = register("rent", false);
+    static final Operation RETURN = register("returnItem", false);
+    static final Operation FILTER_TABLE = register("filterTable", true);
+    static final Operation REFRESH_TABLE = register("refreshTable", false);
+
+    private LibraryMetrics() {}
+
+    static long allocatedBytes() {
+        if (THREADS == null || Thread.currentThread().isVirtual()) return -1;
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    static long totalAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getTotalThreadAllocatedBytes();
+    }
+
+    static String dump() {
+        StringBuilder out = new StringBuilder(String.format("%-14s %10s %10s %10s %10s %10s %10s%n",
+                "операція", "викликів", "сер. мкс", "p50 мкс", "p99 мкс", "макс мкс", "байт/оп"));
+        synchronized (OPERATIONS) {
+            for (Operation operation : OPERATIONS) {
+                long bytes = operation.getAllocatedBytesPerOperation();
+                out.append(String.format("%-14s %10d %10.1f %10.1f %10.1f %10.1f %10s%n", operation.name,
+                        operation.getCount(), operation.getMeanMicros(), operation.getP50Micros(),
+                        operation.getP99Micros(), operation.getMaxMicros(), bytes < 0 ? "н/д" : String.valueOf(bytes)));
+            }
+        }
+        long total = totalAllocatedBytes();
+        if (total >= 0) out.append(String.format("Виділено пам'яті всіма потоками: %.1f МБ%n", total / 1048576.0));
+        return out.toString();
+    }
+
+    private static Operation register(String name, boolean trackAllocations) {
+        Operation operation = new Operation(name, trackAllocations && THREADS != null);
+        OPERATIONS.add(operation);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(operation,
+                    new ObjectName("library:type=Operation,name=" + name));
+        } catch (Exception e) {
+            System.err.println("Не вдалося зареєструвати MBean " + name + ": " + e.getMessage());
+        }
+        return operation;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    static class Operation implements OperationMetricsMXBean {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final String name;
+        private final boolean trackAllocations;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final LongAdder allocationSamples = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        Operation(String name, boolean trackAllocations) {
+            this.name = name;
+            this.trackAllocations = trackAllocations;
+            for (int i = 0; i < BUCKETS; i++) histogram[i] = new LongAdder();
+        }
+
+        long startAllocations() {
+            return trackAllocations ? allocatedBytes() : -1;
+        }
+
+        void record(long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            histogram[bucket(nanos)].increment();
+        }
+
+        void record(long startNanos, long startAllocations) {
+            record(startNanos);
+            if (startAllocations < 0) return;
+            long endAllocations = allocatedBytes();
+            if (endAllocations < 0) return;
+            allocated.add(endAllocations - startAllocations);
+            allocationSamples.increment();
+        }
+
+        public long getCount() { return count.sum(); }
+
+        public double getMeanMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1000.0 / n;
+        }
+
+        public double getP50Micros() { return percentile(0.50) / 1000.0; }
+        public double getP99Micros() { return percentile(0.99) / 1000.0; }
+        public double getMaxMicros() { return maxNanos.get() / 1000.0; }
+
+        public long getAllocatedBytesPerOperation() {
+            long n = allocationSamples.sum();
+            return n == 0 ? -1 : allocated.sum() / n;
+        }
+
+        public long getAllocationSamples() { return allocationSamples.sum(); }
+
+        public void reset() {
+            count.reset();
+            totalNanos.reset();
+            allocated.reset();
+            allocationSamples.reset();
+            maxNanos.reset();
+            for (LongAdder bucket : histogram) bucket.reset();
+        }
+
+        private long percentile(double quantile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) total += counts[i] = histogram[i].sum();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return bucketValue(i);
+            }
+            return maxNanos.get();
+        }
+
+        static int bucket(long nanos) {
+            if (nanos < SUB_BUCKETS) return (int) Math.max(nanos, 0);
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        static long bucketValue(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int sub = bucket % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class LibraryQuery {
+    enum Field {
+        YEAR(LibraryItem.class), PAGES(Book.class), ISSUE_NUMBER(Magazine.class), DURATION(DVD.class);
+
+        private final Class<? extends LibraryItem> type;
+        Field(Class<? extends LibraryItem> type) { this.type = type; }
+
+        public boolean appliesTo(LibraryItem item) {
+            return type.isInstance(item);
+        }
+
+        public int valueOf(LibraryItem item) {
+            return switch (this) {
+                case YEAR -> item.getYear();
+                case PAGES -> ((Book) item).getPages();
+                case ISSUE_NUMBER -> ((Magazine) item).getIssueNumber();
+                case DURATION -> ((DVD) item).getDuration();
+            };
+        }
+    }
+
+    record Range(Field field, int from, int to) {
+        public boolean test(LibraryItem item) {
+            if (!field.appliesTo(item)) return false;
+            int value = field.valueOf(item);
+            return value >= from && value <= to;
+        }
+    }
+
+    private String text = "";
+    private ItemFilter filter = ItemFilter.ALL;
+    private final List<Range> ranges = new ArrayList<>();
+
+    public static LibraryQuery all() {
+        return new LibraryQuery();
+    }
+
+    public LibraryQuery text(String text) {
+        this.text = text.trim();
+        return this;
+    }
+
+    public LibraryQuery filter(ItemFilter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public LibraryQuery between(Field field, int from, int to) {
+        ranges.add(new Range(field, from, to));
+        return this;
+    }
+
+    public LibraryQuery atLeast(Field field, int from) {
+        return between(field, from, Integer.MAX_VALUE);
+    }
+
+    public LibraryQuery atMost(Field field, int to) {
+        return between(field, Integer.MIN_VALUE, to);
+    }
+
+    public String getText() { return text; }
+    public ItemFilter getFilter() { return filter; }
+    public List<Range> getRanges() { return Collections.unmodifiableList(ranges); }
+
+    public boolean test(LibraryItem item) {
+        if (!filter.accepts(item)) return false;
+        for (Range range : ranges) {
+            if (!range.test(item)) return false;
+        }
+        return text.isEmpty() || item.matches(text);
+    }
+}
@@ -0,0 +1,239 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class LibraryServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 8080;
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    private static final int BACKLOG = 4096;
+
+    private final LibraryManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    LibraryServer(LibraryManager manager, int port) throws IOException {
+        this(manager, InetAddress.getLoopbackAddress(), port);
+    }
+
+    LibraryServer(LibraryManager manager, InetAddress address, int port) throws IOException {
+        this.manager = manager;
+        server = HttpServer.create(new InetSocketAddress(address, port), BACKLOG);
+        server.createContext("/items", this::handleItems);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleItems(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                routeItems(exchange);
+            } catch (RuntimeException e) {
+                // The status is already on the wire; rethrowing lets the server drop the connection,
+                // so the client sees a cut-off body instead of a complete-looking one.
+                if (exchange.getResponseCode() != -1) throw e;
+                if (e instanceof IllegalArgumentException) {
+                    sendError(exchange, 400, e.getMessage());
+                } else {
+                    System.err.println("Помилка обробки запиту " + exchange.getRequestURI() + ": " + e);
+                    sendError(exchange, 500, "Внутрішня помилка сервера");
+                }
+            }
+        }
+    }
+
+    private void routeItems(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/items".length()).split("/");
+        Map<String, String> params = queryParams(exchange);
+        String id = path.length > 1 ? path[1] : null;
+        String action = path.length > 2 ? path[2] : null;
+
+        if (id == null || id.isEmpty()) {
+            switch (method) {
+                case "GET" -> listItems(exchange, params);
+                case "POST" -> addItem(exchange);
+                default -> sendError(exchange, 405, "Метод не підтримується");
+            }
+            return;
+        }
+        LibraryItem item = manager.findById(id);
+        if (item == null) {
+            sendError(exchange, 404, "Елемент не знайдено: " + id);
+            return;
+        }
+        if (action == null) {
+            switch (method) {
+                case "GET" -> sendItem(exchange, 200, item);
+                case "DELETE" -> removeItem(exchange, item);
+                default -> sendError(exchange, 405, "Метод не підтримується");
+            }
+        } else if (!method.equals("POST")) {
+            sendError(exchange, 405, "Метод не підтримується");
+        } else if (action.equals("rent")) {
+            String user = params.getOrDefault("user", "").trim();
+            if (user.isEmpty()) sendError(exchange, 400, "Потрібен параметр user");
+            else if (manager.rent(id, user)) sendItem(exchange, 200, item);
+            else sendError(exchange, 409, "Елемент вже орендовано");
+        } else if (action.equals("return")) {
+            if (manager.returnItem(id)) sendItem(exchange, 200, item);
+            else sendError(exchange, 409, "Елемент не орендовано");
+        } else {
+            sendError(exchange, 404, "Невідома дія: " + action);
+        }
+    }
+
+    private void listItems(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String query = params.getOrDefault("q", "").trim();
+        ItemFilter filter = ItemFilter.valueOf(params.getOrDefault("filter", "ALL").toUpperCase());
+        int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+        int limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_PAGE_SIZE)));
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset і limit мають бути невід'ємними");
+        if (limit > MAX_PAGE_SIZE) throw new IllegalArgumentException("limit не може перевищувати " + MAX_PAGE_SIZE);
+        LibraryQuery libraryQuery = LibraryQuery.all().text(query).filter(filter);
+        range(params, libraryQuery, "year", LibraryQuery.Field.YEAR);
+        range(params, libraryQuery, "pages", LibraryQuery.Field.PAGES);
+        range(params, libraryQuery, "issueNumber", LibraryQuery.Field.ISSUE_NUMBER);
+        range(params, libraryQuery, "duration", LibraryQuery.Field.DURATION);
+        boolean fuzzy = Boolean.parseBoolean(params.getOrDefault("fuzzy", "false")) && !query.isEmpty();
+        List<LibraryItem> items = fuzzy
+                ? manager.fuzzySearch(query, filter, (int) Math.min(Integer.MAX_VALUE, (long) offset + limit))
+                : manager.query(libraryQuery);
+
+        Writer out = openJson(exchange, 200);
+        out.write('[');
+        int end = (int) Math.min(items.size(), (long) offset + limit);
+        for (int i = offset; i < end; i++) {
+            if (i > offset) out.write(',');
+            CatalogTransfer.writeJson(out, items.get(i));
+        }
+        out.write(']');
+        out.flush();
+    }
+
+    private static void range(Map<String, String> params, LibraryQuery query, String name, LibraryQuery.Field field) {
+        String from = params.get(name + "From");
+        String to = params.get(name + "To");
+        if (from == null && to == null) return;
+        query.between(field, from != null ? Integer.parseInt(from) : Integer.MIN_VALUE,
+                to != null ? Integer.parseInt(to) : Integer.MAX_VALUE);
+    }
+
+    private void addItem(HttpExchange exchange) throws IOException {
+        Map<String, String> record;
+        try (PushbackReader in = new PushbackReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), 1)) {
+            record = CatalogTransfer.JsonRecordReader.readObject(in);
+        } catch (IOException e) {
+            sendError(exchange, 400, "Некоректний JSON: " + e.getMessage());
+            return;
+        }
+        LibraryItem item = CatalogTransfer.toItem(record);
+        if (item == null) sendError(exchange, 400, "Некоректний елемент");
+        else if (!manager.addItem(item)) sendError(exchange, 409, "Елемент з таким ID вже існує");
+        else sendItem(exchange, 201, item);
+    }
+
+    private void removeItem(HttpExchange exchange, LibraryItem item) throws IOException {
+        switch (manager.removeItem(item.getId())) {
+            case REMOVED -> exchange.sendResponseHeaders(204, -1);
+            case RENTED -> sendError(exchange, 409, "Неможливо видалити орендований елемент");
+            case NOT_FOUND -> sendError(exchange, 404, "Елемент не знайдено: " + item.getId());
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Метод не підтримується");
+                return;
+            }
+            LibraryStats stats = manager.getStatistics();
+            Writer out = openJson(exchange, 200);
+            out.write(String.format("{\"total\":%d,\"books\":%d,\"magazines\":%d,\"dvds\":%d,\"available\":%d,\"rented\":%d",
+                    stats.total(), stats.books(), stats.magazines(), stats.dvds(), stats.available(), stats.rented()));
+            out.write(",\"rentalsByUser\":{");
+            boolean first = true;
+            for (Map.Entry<String, Integer> entry : stats.rentalsByUser().entrySet()) {
+                if (!first) out.write(',');
+                first = false;
+                CatalogTransfer.writeJsonString(out, entry.getKey());
+                out.write(':');
+                out.write(entry.getValue().toString());
+            }
+            out.write("},\"itemsByYear\":{");
+            first = true;
+            for (Map.Entry<Integer, Integer> entry : stats.itemsByYear().entrySet()) {
+                if (!first) out.write(',');
+                first = false;
+                out.write('"' + entry.getKey().toString() + "\":" + entry.getValue());
+            }
+            out.write('}');
+            OutstandingLoan oldest = stats.oldestLoan();
+            if (oldest != null) {
+                out.write(",\"oldestLoan\":{\"id\":");
+                CatalogTransfer.writeJsonString(out, oldest.itemId());
+                out.write(",\"user\":");
+                CatalogTransfer.writeJsonString(out, oldest.user());
+                out.write(",\"date\":\"" + oldest.date() + "\"}");
+            }
+            out.write('}');
+            out.flush();
+        }
+    }
+
+    private static void sendItem(HttpExchange exchange, int status, LibraryItem item) throws IOException {
+        Writer out = openJson(exchange, status);
+        CatalogTransfer.writeJson(out, item);
+        out.flush();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        Writer out = openJson(exchange, status);
+        out.write("{\"error\":");
+        CatalogTransfer.writeJsonString(out, message != null ? message : "Помилка");
+        out.write('}');
+        out.flush();
+    }
+
+    private static Writer openJson(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192);
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
@@ -0,0 +1,135 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class LibraryTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"ID", "Тип", "Назва", "Рік", "Додатково", "Статус", "Орендовано"};
+
+    private List<LibraryItem> items = new ArrayList<>();
+    private final List<LibraryItem> added = new ArrayList<>();
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    private int[] removedTree;
+    private Map<LibraryItem, Integer> positions;
+
+    public void setItems(List<LibraryItem> items) {
+        this.items = items;
+        added.clear();
+        removed.clear();
+        removedCount = 0;
+        removedTree = null;
+        positions = null;
+        fireTableDataChanged();
+    }
+
+    public LibraryItem getItemAt(int row) {
+        return itemAt(position(row));
+    }
+
+    public int rowOf(LibraryItem item) {
+        if (positions == null) {
+            positions = new HashMap<>(positionCount() * 2);
+            for (int p = 0; p < positionCount(); p++) {
+                if (!removed.get(p)) positions.put(itemAt(p), p);
+            }
+        }
+        Integer position = positions.get(item);
+        return position != null ? position - removedBefore(position) : -1;
+    }
+
+    public void addRow(LibraryItem item) {
+        int position = positionCount();
+        added.add(item);
+        if (positions != null) positions.put(item, position);
+        if (removedTree != null && position + 1 >= removedTree.length) buildTree();
+        int row = getRowCount() - 1;
+        fireTableRowsInserted(row, row);
+    }
+
+    public void removeRow(int row) {
+        int position = position(row);
+        if (positions != null) positions.remove(itemAt(position));
+        removed.set(position);
+        removedCount++;
+        if (removedTree == null) buildTree();
+        else for (int i = position + 1; i < removedTree.length; i += i & -i) removedTree[i]++;
+        if (removedCount > 1024 && removedCount > positionCount() / 2) compact();
+        fireTableRowsDeleted(row, row);
+    }
+
+    public void updateRow(int row) {
+        fireTableRowsUpdated(row, row);
+    }
+
+    private int positionCount() {
+        return items.size() + added.size();
+    }
+
+    private LibraryItem itemAt(int position) {
+        return position < items.size() ? items.get(position) : added.get(position - items.size());
+    }
+
+    private int removedBefore(int position) {
+        if (removedCount == 0) return 0;
+        int count = 0;
+        for (int i = position; i > 0; i -= i & -i) count += removedTree[i];
+        return count;
+    }
+
+    private int position(int row) {
+        if (removedCount == 0) return row;
+        int position = 0;
+        int remaining = row + 1;
+        for (int step = Integer.highestOneBit(removedTree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < removedTree.length && step - removedTree[next] < remaining) {
+                position = next;
+                remaining -= step - removedTree[next];
+            }
+        }
+        return position;
+    }
+
+    private void buildTree() {
+        int capacity = Integer.highestOneBit(Math.max(positionCount(), 1)) << 1;
+        removedTree = new int[capacity + 1];
+        for (int p = removed.nextSetBit(0); p >= 0; p = removed.nextSetBit(p + 1)) removedTree[p + 1]++;
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) removedTree[parent] += removedTree[i];
+        }
+    }
+
+    private void compact() {
+        List<LibraryItem> alive = new ArrayList<>(positionCount() - removedCount);
+        for (int p = 0; p < positionCount(); p++) {
+            if (!removed.get(p)) alive.add(itemAt(p));
+        }
+        items = alive;
+        added.clear();
+        removed.clear();
+        removedCount = 0;
+        removedTree = null;
+        positions = null;
+    }
+
+    public int getRowCount() { return positionCount() - removedCount; }
+    public int getColumnCount() { return COLUMNS.length; }
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    public Object getValueAt(int row, int column) {
+        LibraryItem item = getItemAt(row);
+        return switch (column) {
+            case 0 -> item.getId();
+            case 1 -> item.getType();
+            case 2 -> item.getTitle();
+            case 3 -> item.getYear();
+            case 4 -> item.getDetails();
+            case 5 -> item.getStatus();
+            default -> item.getRentedBy() != null ? item.getRentedBy() : "-";
+        };
+    }
+}
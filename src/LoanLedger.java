@@ -0,0 +1,213 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+class LoanLedger implements LibraryListener, AutoCloseable {
+    static final int LOAN_DAYS = 14;
+
+    enum Kind { RENT, RETURN }
+
+    record LoanEvent(String itemId, String user, Kind kind, LocalDate date) {}
+
+    record DueLoan(LocalDate due, String itemId, String user) implements Comparable<DueLoan> {
+        public int compareTo(DueLoan other) {
+            int byDue = due.compareTo(other.due);
+            return byDue != 0 ? byDue : itemId.compareTo(other.itemId);
+        }
+    }
+
+    private static final LoanEvent CLOSE = new LoanEvent("", "", Kind.RETURN, LocalDate.MIN);
+
+    private final Path file;
+    private final Map<String, List<LoanEvent>> eventsByUser = new ConcurrentHashMap<>();
+    private final Map<String, List<LoanEvent>> eventsByItem = new ConcurrentHashMap<>();
+    private final NavigableSet<DueLoan> dueLoans = new ConcurrentSkipListSet<>();
+    private final BlockingQueue<LoanEvent> pending = new LinkedBlockingQueue<>();
+    private DataOutputStream out;
+    private volatile Thread writer;
+    private ScheduledExecutorService scheduler;
+    private LocalDate checkedUntil = LocalDate.MIN;
+
+    LoanLedger(Path file) {
+        this.file = file;
+    }
+
+    public void open() throws IOException {
+        Files.createDirectories(file.getParent());
+        long validEnd = 0;
+        if (Files.exists(file)) {
+            Map<String, String> names = new HashMap<>();
+            try (CountingInput counter = new CountingInput(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                DataInputStream in = new DataInputStream(counter);
+                while (true) {
+                    int kind = in.read();
+                    if (kind < 0) break;
+                    String itemId = canonical(names, in.readUTF());
+                    String user = canonical(names, in.readUTF());
+                    index(new LoanEvent(itemId, user, Kind.values()[kind], LocalDate.ofEpochDay(in.readLong())));
+                    validEnd = counter.count;
+                }
+            } catch (IOException | ArrayIndexOutOfBoundsException e) {
+                System.err.println("Журнал оренд обрізано після " + validEnd + " байт");
+            }
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        Thread thread = new Thread(this::writeLoop, "loan-ledger");
+        thread.setDaemon(true);
+        thread.start();
+        writer = thread;
+    }
+
+    public void loanChanged(LibraryItem item, Loan previous, Loan current) {
+        if (previous != null) {
+            dueLoans.remove(dueLoan(item, previous));
+            record(new LoanEvent(item.getId(), previous.user(), Kind.RETURN, LocalDate.now()));
+        }
+        if (current != null) {
+            dueLoans.add(dueLoan(item, current));
+            record(new LoanEvent(item.getId(), current.user(), Kind.RENT, current.date()));
+        }
+    }
+
+    public void itemAdded(LibraryItem item) {
+        Loan loan = item.getLoan();
+        if (loan != null) dueLoans.add(dueLoan(item, loan));
+    }
+
+    public void itemRemoved(LibraryItem item) {
+        Loan loan = item.getLoan();
+        if (loan != null) dueLoans.remove(dueLoan(item, loan));
+    }
+
+    public List<LoanEvent> historyForUser(String user) {
+        return snapshot(eventsByUser.get(user));
+    }
+
+    public List<LoanEvent> historyForItem(String itemId) {
+        return snapshot(eventsByItem.get(itemId));
+    }
+
+    public List<DueLoan> overdue(LocalDate today) {
+        return List.copyOf(dueLoans.headSet(new DueLoan(today, "", ""), false));
+    }
+
+    public synchronized List<DueLoan> newlyOverdue(LocalDate today) {
+        LocalDate from = checkedUntil;
+        if (!today.isAfter(from)) return List.of();
+        checkedUntil = today;
+        NavigableSet<DueLoan> range = from == LocalDate.MIN
+                ? dueLoans.headSet(new DueLoan(today, "", ""), false)
+                : dueLoans.subSet(new DueLoan(from, "", ""), true, new DueLoan(today, "", ""), false);
+        return List.copyOf(range);
+    }
+
+    public void startMonitor(Consumer<List<DueLoan>> onOverdue) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("overdue-monitor").factory());
+        scheduler.scheduleAtFixedRate(() -> {
+            List<DueLoan> overdue = newlyOverdue(LocalDate.now());
+            if (!overdue.isEmpty()) onOverdue.accept(overdue);
+        }, 0, 1, TimeUnit.HOURS);
+    }
+
+    public synchronized void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+        Thread thread = writer;
+        if (thread == null) return;
+        writer = null;
+        pending.add(CLOSE);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static DueLoan dueLoan(LibraryItem item, Loan loan) {
+        return new DueLoan(loan.date().plusDays(LOAN_DAYS), item.getId(), loan.user());
+    }
+
+    private void index(LoanEvent event) {
+        eventsByUser.computeIfAbsent(event.user(), u -> Collections.synchronizedList(new ArrayList<>())).add(event);
+        eventsByItem.computeIfAbsent(event.itemId(), i -> Collections.synchronizedList(new ArrayList<>())).add(event);
+    }
+
+    // Runs inside the item's rent/return monitor, so it only indexes and enqueues; the
+    // writer thread does the file I/O, one flush per batch.
+    private void record(LoanEvent event) {
+        index(event);
+        if (writer != null) pending.add(event);
+    }
+
+    private void writeLoop() {
+        List<LoanEvent> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(pending.take());
+                pending.drainTo(batch);
+                for (LoanEvent event : batch) {
+                    if (event == CLOSE) {
+                        running = false;
+                        continue;
+                    }
+                    out.writeByte(event.kind().ordinal());
+                    out.writeUTF(event.itemId());
+                    out.writeUTF(event.user());
+                    out.writeLong(event.date().toEpochDay());
+                }
+                out.flush();
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (IOException e) {
+                System.err.println("Помилка запису журналу оренд: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Помилка закриття журналу оренд: " + e.getMessage());
+        }
+    }
+
+    private static String canonical(Map<String, String> names, String value) {
+        String existing = names.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static List<LoanEvent> snapshot(List<LoanEvent> events) {
+        if (events == null) return List.of();
+        synchronized (events) {
+            return List.copyOf(events);
+        }
+    }
+
+    private static class CountingInput extends FilterInputStream {
+        long count;
+
+        CountingInput(InputStream in) { super(in); }
+
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int n = super.read(bytes, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+public interface OperationMetricsMXBean {
+    long getCount();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getMaxMicros();
+    long getAllocatedBytesPerOperation();
+    long getAllocationSamples();
+    void reset();
+}
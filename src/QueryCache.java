@@ -0,0 +1,169 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+class QueryCache {
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+    static final int DEFAULT_MAX_WEIGHT = 4_000_000;
+
+    enum Change { STRUCTURE, FIELDS, LOAN }
+
+    private record Key(String query, ItemFilter filter) {
+        boolean loanSensitive() {
+            return filter == ItemFilter.AVAILABLE || filter == ItemFilter.RENTED;
+        }
+    }
+
+    // The query's trigrams are kept next to the result so invalidation can rule an entry
+    // out by set lookups against the changed item's grams before running matches().
+    private record Entry(List<LibraryItem> items, String[] grams) {}
+
+    // The changed item, with its grams extracted on first use and shared by every entry.
+    private static final class Probe {
+        private final LibraryItem item;
+        private Set<String> grams;
+
+        Probe(LibraryItem item) { this.item = item; }
+
+        boolean matches(Key key, Entry entry) {
+            if (key.query().isEmpty()) return true;
+            if (entry.grams().length > 0) {
+                if (grams == null) grams = SearchIndex.grams(item);
+                for (String gram : entry.grams()) {
+                    if (!grams.contains(gram)) return false;
+                }
+            }
+            return item.matches(key.query());
+        }
+    }
+
+    private final int maxEntries;
+    private final int maxWeight;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<Key> loanKeys = new HashSet<>();
+    private final AtomicInteger loanEntries = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong loanVersion = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long weight;
+
+    QueryCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    QueryCache(int maxEntries, int maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    public long version(ItemFilter filter) {
+        long current = version.get();
+        return filter == ItemFilter.AVAILABLE || filter == ItemFilter.RENTED ? current + loanVersion.get() : current;
+    }
+
+    public synchronized List<LibraryItem> get(String query, ItemFilter filter) {
+        Entry entry = entries.get(new Key(query.toLowerCase(), filter));
+        if (entry != null) hits.increment();
+        else misses.increment();
+        return entry == null ? null : entry.items();
+    }
+
+    public synchronized List<LibraryItem> put(String query, ItemFilter filter, List<LibraryItem> result, long seenVersion) {
+        List<LibraryItem> cached = Collections.unmodifiableList(result);
+        Key key = new Key(query.toLowerCase(), filter);
+        // Publish the loan entry before re-reading the version, so a concurrent LOAN change
+        // either bumps the version we are about to check or sees the entry and waits for us.
+        if (key.loanSensitive()) loanEntries.incrementAndGet();
+        if (seenVersion != version(filter) || result.size() > maxWeight / 4) {
+            if (key.loanSensitive()) loanEntries.decrementAndGet();
+            return cached;
+        }
+        Entry previous = entries.put(key, new Entry(cached, grams(key.query())));
+        if (previous != null) weight -= previous.items().size();
+        weight += result.size();
+        if (key.loanSensitive() && !loanKeys.add(key)) loanEntries.decrementAndGet();
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            Map.Entry<Key, Entry> entry = eldest.next();
+            eldest.remove();
+            evicted(entry);
+        }
+        return cached;
+    }
+
+    public void invalidate(LibraryItem item, Change change) {
+        if (change == Change.LOAN) {
+            loanVersion.incrementAndGet();
+            if (loanEntries.get() == 0) return;
+            synchronized (this) {
+                Probe probe = new Probe(item);
+                Iterator<Key> it = loanKeys.iterator();
+                while (it.hasNext()) {
+                    Key key = it.next();
+                    if (!affects(key, entries.get(key), probe, change)) continue;
+                    it.remove();
+                    loanEntries.decrementAndGet();
+                    weight -= entries.remove(key).items().size();
+                }
+            }
+            return;
+        }
+        version.incrementAndGet();
+        synchronized (this) {
+            if (entries.isEmpty()) return;
+            Probe probe = new Probe(item);
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> entry = it.next();
+                if (affects(entry.getKey(), entry.getValue(), probe, change)) {
+                    it.remove();
+                    evicted(entry);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        version.incrementAndGet();
+        entries.clear();
+        loanEntries.addAndGet(-loanKeys.size());
+        loanKeys.clear();
+        weight = 0;
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public synchronized int size() { return entries.size(); }
+
+    private void evicted(Map.Entry<Key, Entry> entry) {
+        weight -= entry.getValue().items().size();
+        if (loanKeys.remove(entry.getKey())) loanEntries.decrementAndGet();
+    }
+
+    private static String[] grams(String query) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + SearchIndex.GRAM_LENGTH <= query.length(); i++) {
+            grams.add(query.substring(i, i + SearchIndex.GRAM_LENGTH));
+        }
+        return grams.toArray(new String[0]);
+    }
+
+    private static boolean affects(Key key, Entry entry, Probe probe, Change change) {
+        LibraryItem item = probe.item;
+        ItemFilter filter = key.filter();
+        boolean typeMatches = switch (filter) {
+            case BOOKS -> item instanceof Book;
+            case MAGAZINES -> item instanceof Magazine;
+            case DVDS -> item instanceof DVD;
+            default -> true;
+        };
+        if (!typeMatches) return false;
+        return switch (change) {
+            case STRUCTURE -> probe.matches(key, entry);
+            case FIELDS -> !key.query().isEmpty() && probe.matches(key, entry);
+            case LOAN -> key.loanSensitive() && probe.matches(key, entry);
+        };
+    }
+}
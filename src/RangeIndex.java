@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Entries are (key, slot) pairs packed into longs and kept sorted in bounded blocks,
+// with a Fenwick tree over block sizes, so count is O(log n) and select is O(k).
+class RangeIndex {
+    static final int BLOCK_SIZE = 512;
+    private static final long SLOT_LIMIT = 0x8000_0000L;
+
+    private final List<long[]> blocks = new ArrayList<>();
+    private int[] sizes = new int[0];
+    private int[] tree = new int[1];
+    private int size;
+
+    public void add(int key, int slot) {
+        if (slot < 0) return;
+        long entry = entry(key, slot);
+        if (blocks.isEmpty()) {
+            blocks.add(new long[BLOCK_SIZE]);
+            sizes = new int[1];
+            rebuildTree();
+        }
+        int block = blockOf(entry);
+        long[] entries = blocks.get(block);
+        int at = Arrays.binarySearch(entries, 0, sizes[block], entry);
+        if (at >= 0) return;
+        at = -at - 1;
+        System.arraycopy(entries, at, entries, at + 1, sizes[block] - at);
+        entries[at] = entry;
+        sizes[block]++;
+        size++;
+        if (sizes[block] == BLOCK_SIZE) split(block);
+        else update(block, 1);
+    }
+
+    public void addAll(int[] keys, int[] slots, int count) {
+        if (count < Math.max(BLOCK_SIZE, size / 8)) {
+            for (int i = 0; i < count; i++) add(keys[i], slots[i]);
+            return;
+        }
+        long[] merged = new long[size + count];
+        int n = 0;
+        for (int block = 0; block < blocks.size(); block++) {
+            System.arraycopy(blocks.get(block), 0, merged, n, sizes[block]);
+            n += sizes[block];
+        }
+        for (int i = 0; i < count; i++) {
+            if (slots[i] >= 0) merged[n++] = entry(keys[i], slots[i]);
+        }
+        Arrays.sort(merged, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || merged[unique - 1] != merged[i]) merged[unique++] = merged[i];
+        }
+        int fill = BLOCK_SIZE * 3 / 4;
+        blocks.clear();
+        sizes = new int[(unique + fill - 1) / fill];
+        for (int block = 0; block < sizes.length; block++) {
+            long[] entries = new long[BLOCK_SIZE];
+            sizes[block] = Math.min(fill, unique - block * fill);
+            System.arraycopy(merged, block * fill, entries, 0, sizes[block]);
+            blocks.add(entries);
+        }
+        size = unique;
+        rebuildTree();
+    }
+
+    public void remove(int key, int slot) {
+        if (slot < 0 || blocks.isEmpty()) return;
+        long entry = entry(key, slot);
+        int block = blockOf(entry);
+        long[] entries = blocks.get(block);
+        int at = Arrays.binarySearch(entries, 0, sizes[block], entry);
+        if (at < 0) return;
+        System.arraycopy(entries, at + 1, entries, at, sizes[block] - at - 1);
+        sizes[block]--;
+        size--;
+        if (sizes[block] > 0) {
+            update(block, -1);
+        } else {
+            blocks.remove(block);
+            int[] shrunk = new int[blocks.size()];
+            System.arraycopy(sizes, 0, shrunk, 0, block);
+            System.arraycopy(sizes, block + 1, shrunk, block, shrunk.length - block);
+            sizes = shrunk;
+            rebuildTree();
+        }
+    }
+
+    public int count(int from, int to) {
+        if (from > to) return 0;
+        return rank(upperBound(to)) - rank(entry(from, 0));
+    }
+
+    public int[] select(int from, int to) {
+        int[] slots = new int[count(from, to)];
+        if (slots.length == 0) return slots;
+        long lower = entry(from, 0);
+        int block = blockOf(lower);
+        int at = lowerBound(block, lower);
+        for (int n = 0; n < slots.length; at++) {
+            if (at == sizes[block]) {
+                block++;
+                at = 0;
+            }
+            slots[n++] = (int) blocks.get(block)[at];
+        }
+        return slots;
+    }
+
+    public int size() { return size; }
+
+    private static long entry(int key, int slot) {
+        return (long) key << 32 | slot;
+    }
+
+    private static long upperBound(int key) {
+        return (long) key << 32 | SLOT_LIMIT;
+    }
+
+    private int rank(long entry) {
+        if (blocks.isEmpty()) return 0;
+        int block = blockOf(entry);
+        return prefix(block) + lowerBound(block, entry);
+    }
+
+    private int lowerBound(int block, long entry) {
+        int at = Arrays.binarySearch(blocks.get(block), 0, sizes[block], entry);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    // The last block whose first entry is <= entry, or the first block.
+    private int blockOf(long entry) {
+        int low = 0, high = blocks.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blocks.get(mid)[0] <= entry) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    private void split(int block) {
+        long[] entries = blocks.get(block);
+        long[] upper = new long[BLOCK_SIZE];
+        int half = BLOCK_SIZE / 2;
+        System.arraycopy(entries, half, upper, 0, BLOCK_SIZE - half);
+        Arrays.fill(entries, half, BLOCK_SIZE, 0);
+        blocks.add(block + 1, upper);
+        sizes[block] = half;
+        int[] grown = new int[blocks.size()];
+        System.arraycopy(sizes, 0, grown, 0, block + 1);
+        grown[block + 1] = BLOCK_SIZE - half;
+        System.arraycopy(sizes, block + 1, grown, block + 2, sizes.length - block - 1);
+        sizes = grown;
+        rebuildTree();
+    }
+
+    private void rebuildTree() {
+        tree = new int[sizes.length + 1];
+        for (int block = 0; block < sizes.length; block++) {
+            int i = block + 1;
+            tree[i] += sizes[block];
+            int parent = i + (i & -i);
+            if (parent < tree.length) tree[parent] += tree[i];
+        }
+    }
+
+    private void update(int block, int delta) {
+        for (int i = block + 1; i < tree.length; i += i & -i) tree[i] += delta;
+    }
+
+    private int prefix(int block) {
+        int sum = 0;
+        for (int i = block; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.*;
+
+class SearchIndex<T extends LibraryItem> {
+    static final int GRAM_LENGTH = 3;
+    private static final char BOUNDARY = '\0';
+
+    private final Map<String, Posting> postings = new HashMap<>();
+    // Every 1- and 2-character piece of the indexed grams, mapped to the grams containing it,
+    // so a short query reads its postings directly instead of scanning every gram key.
+    private final Map<String, Set<String>> gramsByPiece = new HashMap<>();
+    private final Map<T, Integer> ids = new HashMap<>();
+    private final List<T> items = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+
+    public int add(T item) {
+        Integer existing = ids.get(item);
+        if (existing != null) return existing;
+        int id;
+        if (freeIds.isEmpty()) {
+            id = items.size();
+            items.add(item);
+        } else {
+            id = freeIds.pop();
+            items.set(id, item);
+        }
+        ids.put(item, id);
+        for (String gram : grams(item)) posting(gram).add(id);
+        return id;
+    }
+
+    // Bulk loading from stored postings: append registers an item without extracting its
+    // grams, and appendPosting adds ids above every id already in that gram's posting.
+    public int append(T item) {
+        int id = items.size();
+        items.add(item);
+        ids.put(item, id);
+        return id;
+    }
+
+    public void appendPosting(String gram, int[] appended, int count) {
+        posting(gram).append(appended, count);
+    }
+
+    public void remove(T item) {
+        Integer id = ids.remove(item);
+        if (id == null) return;
+        for (String gram : grams(item)) {
+            Posting posting = postings.get(gram);
+            if (posting == null) continue;
+            posting.remove(id);
+            if (posting.size == 0) drop(gram);
+        }
+        items.set(id, null);
+        freeIds.push(id);
+    }
+
+    public List<T> search(String query) {
+        String q = query.toLowerCase();
+        if (q.length() < GRAM_LENGTH) return collect(containing(q));
+
+        List<Posting> sets = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= q.length(); i++) {
+            Posting posting = postings.get(q.substring(i, i + GRAM_LENGTH));
+            if (posting == null) return new ArrayList<>();
+            sets.add(posting);
+        }
+        sets.sort(Comparator.comparingInt(posting -> posting.size));
+
+        List<T> results = new ArrayList<>();
+        Posting smallest = sets.get(0);
+        candidates:
+        for (int i = 0; i < smallest.size; i++) {
+            int id = smallest.ids[i];
+            for (int j = 1; j < sets.size(); j++) {
+                if (!sets.get(j).contains(id)) continue candidates;
+            }
+            T item = items.get(id);
+            if (item.matches(query)) results.add(item);
+        }
+        return results;
+    }
+
+    public List<List<T>> candidates(String query, int minShared) {
+        String q = query.toLowerCase();
+        List<List<T>> levels = new ArrayList<>();
+        levels.add(new ArrayList<>());
+        if (q.length() < GRAM_LENGTH) {
+            levels.add(collect(containing(q)));
+            return levels;
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= q.length(); i++) grams.add(q.substring(i, i + GRAM_LENGTH));
+        for (int i = 0; i < grams.size(); i++) levels.add(new ArrayList<>());
+        List<Posting> matched = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Posting posting = postings.get(gram);
+            if (posting != null) matched.add(posting);
+        }
+        if (matched.size() < Math.max(1, minShared)) return levels;
+
+        // Counting runs over the matched postings only, so the scratch space is their total
+        // length rather than the catalog size.
+        int total = 0;
+        for (Posting posting : matched) total += posting.size;
+        int[] hits = new int[total];
+        int n = 0;
+        for (Posting posting : matched) {
+            System.arraycopy(posting.ids, 0, hits, n, posting.size);
+            n += posting.size;
+        }
+        Arrays.sort(hits);
+        for (int from = 0; from < total; ) {
+            int to = from + 1;
+            while (to < total && hits[to] == hits[from]) to++;
+            if (to - from >= Math.max(1, minShared)) levels.get(to - from).add(items.get(hits[from]));
+            from = to;
+        }
+        return levels;
+    }
+
+    public List<T> containingAny(List<String> pieces) {
+        BitSet selected = new BitSet(items.size());
+        for (String piece : pieces) {
+            String q = piece.toLowerCase();
+            if (q.length() < GRAM_LENGTH) selected.or(containing(q));
+            else for (T item : search(q)) selected.set(ids.get(item));
+        }
+        return collect(selected);
+    }
+
+    public int estimate(String query) {
+        String q = query.toLowerCase();
+        if (q.length() < GRAM_LENGTH) {
+            long total = 0;
+            for (Posting posting : postingsContaining(q)) total += posting.size;
+            return (int) Math.min(total, ids.size());
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM_LENGTH <= q.length(); i++) {
+            Posting posting = postings.get(q.substring(i, i + GRAM_LENGTH));
+            if (posting == null) return 0;
+            smallest = Math.min(smallest, posting.size);
+        }
+        return smallest;
+    }
+
+    private List<Posting> postingsContaining(String q) {
+        if (q.isEmpty()) return new ArrayList<>(postings.values());
+        List<Posting> matched = new ArrayList<>();
+        for (String gram : gramsByPiece.getOrDefault(q, Set.of())) matched.add(postings.get(gram));
+        return matched;
+    }
+
+    private Posting posting(String gram) {
+        Posting posting = postings.get(gram);
+        if (posting == null) {
+            posting = new Posting();
+            postings.put(gram, posting);
+            for (String piece : pieces(gram)) gramsByPiece.computeIfAbsent(piece, p -> new HashSet<>()).add(gram);
+        }
+        return posting;
+    }
+
+    private void drop(String gram) {
+        postings.remove(gram);
+        for (String piece : pieces(gram)) {
+            Set<String> grams = gramsByPiece.get(piece);
+            grams.remove(gram);
+            if (grams.isEmpty()) gramsByPiece.remove(piece);
+        }
+    }
+
+    private static Set<String> pieces(String gram) {
+        Set<String> pieces = new HashSet<>();
+        for (int length = 1; length < GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= gram.length(); i++) {
+                String piece = gram.substring(i, i + length);
+                if (piece.indexOf(BOUNDARY) < 0) pieces.add(piece);
+            }
+        }
+        return pieces;
+    }
+
+    private BitSet containing(String q) {
+        BitSet selected = new BitSet(items.size());
+        for (Posting posting : postingsContaining(q)) {
+            for (int i = 0; i < posting.size; i++) selected.set(posting.ids[i]);
+        }
+        return selected;
+    }
+
+    private List<T> collect(BitSet selected) {
+        List<T> results = new ArrayList<>(selected.cardinality());
+        for (int id = selected.nextSetBit(0); id >= 0; id = selected.nextSetBit(id + 1)) results.add(items.get(id));
+        return results;
+    }
+
+    static Set<String> grams(LibraryItem item) {
+        Set<String> grams = new HashSet<>();
+        for (String field : item.getSearchFields()) {
+            if (field == null) continue;
+            String f = BOUNDARY + field.toLowerCase() + BOUNDARY;
+            for (int i = 0; i + GRAM_LENGTH <= f.length(); i++) grams.add(f.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static class Posting {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) return;
+            at = -at - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void append(int[] appended, int count) {
+            if (size + count > ids.length) ids = Arrays.copyOf(ids, Math.max(size + count, size + (size >> 1) + 1));
+            System.arraycopy(appended, 0, ids, size, count);
+            size += count;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) return;
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            if (size > 4 && size < ids.length / 4) ids = Arrays.copyOf(ids, size * 2);
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
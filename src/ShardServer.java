@@ -0,0 +1,146 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class ShardServer implements AutoCloseable {
+    static final byte ADD = 1;
+    static final byte REMOVE = 2;
+    static final byte FIND = 3;
+    static final byte RENT = 4;
+    static final byte RETURN = 5;
+    static final byte SEARCH = 6;
+    static final byte STATS = 7;
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    private final LibraryManager manager;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    ShardServer(LibraryManager manager, int port) throws IOException {
+        this.manager = manager;
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    public void start() {
+        Thread.ofPlatform().name("shard-node-" + getPort()).start(this::acceptLoop);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) System.err.println("Помилка з'єднання з вузлом: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream response = new DataOutputStream(buffer);
+            while (true) {
+                int op = in.read();
+                if (op < 0) return;
+                buffer.reset();
+                try {
+                    handle((byte) op, in, response);
+                    out.writeByte(OK);
+                    buffer.writeTo(out);
+                } catch (RuntimeException e) {
+                    out.writeByte(ERROR);
+                    out.writeUTF(e.getMessage() != null ? e.getMessage() : e.toString());
+                }
+                out.flush();
+            }
+        } catch (SocketException | EOFException ignored) {
+        } catch (IOException e) {
+            System.err.println("Помилка обробки запиту вузла: " + e.getMessage());
+        }
+    }
+
+    private void handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case ADD -> out.writeBoolean(manager.addItem(CatalogCodec.readItem(in)));
+            case REMOVE -> out.writeBoolean(manager.removeItem(in.readUTF()) == LibraryManager.Removal.REMOVED);
+            case FIND -> writeOptionalItem(out, manager.findById(in.readUTF()));
+            case RENT -> out.writeBoolean(manager.rent(in.readUTF(), in.readUTF()));
+            case RETURN -> out.writeBoolean(manager.returnItem(in.readUTF()));
+            case SEARCH -> {
+                String query = in.readUTF();
+                List<LibraryItem> items = manager.searchAll(query, ItemFilter.values()[in.readByte()]);
+                out.writeInt(items.size());
+                for (LibraryItem item : items) CatalogCodec.writeItem(out, item);
+            }
+            case STATS -> writeStats(out, manager.getStatistics());
+            default -> throw new IOException("Невідома операція вузла: " + op);
+        }
+    }
+
+    static void writeOptionalItem(DataOutput out, LibraryItem item) throws IOException {
+        out.writeBoolean(item != null);
+        if (item != null) CatalogCodec.writeItem(out, item);
+    }
+
+    static void writeStats(DataOutput out, LibraryStats stats) throws IOException {
+        out.writeInt(stats.total());
+        out.writeInt(stats.books());
+        out.writeInt(stats.magazines());
+        out.writeInt(stats.dvds());
+        out.writeInt(stats.rented());
+        out.writeInt(stats.rentalsByUser().size());
+        for (Map.Entry<String, Integer> entry : stats.rentalsByUser().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        OutstandingLoan oldest = stats.oldestLoan();
+        out.writeBoolean(oldest != null);
+        if (oldest != null) {
+            out.writeLong(oldest.date().toEpochDay());
+            out.writeUTF(oldest.itemId());
+            out.writeUTF(oldest.user());
+        }
+        out.writeInt(stats.itemsByYear().size());
+        for (Map.Entry<Integer, Integer> entry : stats.itemsByYear().entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    static LibraryStats readStats(DataInput in) throws IOException {
+        int total = in.readInt();
+        int books = in.readInt();
+        int magazines = in.readInt();
+        int dvds = in.readInt();
+        int rented = in.readInt();
+        Map<String, Integer> rentalsByUser = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) rentalsByUser.put(in.readUTF(), in.readInt());
+        OutstandingLoan oldest = in.readBoolean()
+                ? new OutstandingLoan(LocalDate.ofEpochDay(in.readLong()), in.readUTF(), in.readUTF()) : null;
+        SortedMap<Integer, Integer> itemsByYear = new TreeMap<>();
+        for (int i = in.readInt(); i > 0; i--) itemsByYear.put(in.readInt(), in.readInt());
+        return new LibraryStats(total, books, magazines, dvds, rented, rentalsByUser, oldest, itemsByYear);
+    }
+
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
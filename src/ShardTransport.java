@@ -0,0 +1,30 @@
+import java.io.IOException;
+import java.util.List;
+
+interface ShardTransport extends AutoCloseable {
+    boolean addItem(LibraryItem item) throws IOException;
+    boolean removeItem(String id) throws IOException;
+    // Remote transports return a detached copy; only the local one hands out the live item.
+    LibraryItem findById(String id) throws IOException;
+    boolean rent(String id, String user) throws IOException;
+    boolean returnItem(String id) throws IOException;
+    List<LibraryItem> searchAll(String query, ItemFilter filter) throws IOException;
+    LibraryStats getStatistics() throws IOException;
+    default void close() throws IOException {}
+}
+
+class LocalShardTransport implements ShardTransport {
+    private final LibraryManager manager;
+
+    LocalShardTransport(LibraryManager manager) {
+        this.manager = manager;
+    }
+
+    public boolean addItem(LibraryItem item) { return manager.addItem(item); }
+    public boolean removeItem(String id) { return manager.removeItem(id) == LibraryManager.Removal.REMOVED; }
+    public LibraryItem findById(String id) { return manager.findById(id); }
+    public boolean rent(String id, String user) { return manager.rent(id, user); }
+    public boolean returnItem(String id) { return manager.returnItem(id); }
+    public List<LibraryItem> searchAll(String query, ItemFilter filter) { return manager.searchAll(query, filter); }
+    public LibraryStats getStatistics() { return manager.getStatistics(); }
+}
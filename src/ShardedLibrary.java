@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class ShardedLibrary implements AutoCloseable {
+    private final List<ShardTransport> shards;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    ShardedLibrary(List<? extends ShardTransport> shards) {
+        if (shards.isEmpty()) throw new IllegalArgumentException("Потрібен хоча б один вузол");
+        this.shards = List.copyOf(shards);
+    }
+
+    static ShardedLibrary inProcess(int nodes) {
+        List<ShardTransport> shards = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) shards.add(new LocalShardTransport(new LibraryManager()));
+        return new ShardedLibrary(shards);
+    }
+
+    public int getShardCount() { return shards.size(); }
+
+    public int shardOf(String id) {
+        return Math.floorMod(id.hashCode(), shards.size());
+    }
+
+    private ShardTransport owner(String id) {
+        return shards.get(shardOf(id));
+    }
+
+    public boolean addItem(LibraryItem item) {
+        try {
+            return owner(item.getId()).addItem(item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean removeItem(String id) {
+        try {
+            return owner(id).removeItem(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Over sockets this is a snapshot of the item on its node: edit through the library's
+    // operations, not the returned object's setters.
+    public LibraryItem findById(String id) {
+        try {
+            return owner(id).findById(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean rent(String id, String userName) {
+        try {
+            return owner(id).rent(id, userName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean returnItem(String id) {
+        try {
+            return owner(id).returnItem(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public List<LibraryItem> searchAll(String query) {
+        return searchAll(query, ItemFilter.ALL);
+    }
+
+    public List<LibraryItem> searchAll(String query, ItemFilter filter) {
+        List<LibraryItem> result = new ArrayList<>();
+        for (List<LibraryItem> part : scatter(shard -> shard.searchAll(query, filter))) result.addAll(part);
+        return result;
+    }
+
+    public LibraryStats getStatistics() {
+        int total = 0, books = 0, magazines = 0, dvds = 0, rented = 0;
+        Map<String, Integer> rentalsByUser = new HashMap<>();
+        OutstandingLoan oldest = null;
+        SortedMap<Integer, Integer> itemsByYear = new TreeMap<>();
+        for (LibraryStats stats : scatter(ShardTransport::getStatistics)) {
+            total += stats.total();
+            books += stats.books();
+            magazines += stats.magazines();
+            dvds += stats.dvds();
+            rented += stats.rented();
+            stats.rentalsByUser().forEach((user, count) -> rentalsByUser.merge(user, count, Integer::sum));
+            stats.itemsByYear().forEach((year, count) -> itemsByYear.merge(year, count, Integer::sum));
+            OutstandingLoan loan = stats.oldestLoan();
+            if (loan != null && (oldest == null || loan.compareTo(oldest) < 0)) oldest = loan;
+        }
+        return new LibraryStats(total, books, magazines, dvds, rented, Map.copyOf(rentalsByUser), oldest, itemsByYear);
+    }
+
+    private interface ShardCall<R> {
+        R call(ShardTransport shard) throws IOException;
+    }
+
+    private <R> List<R> scatter(ShardCall<R> call) {
+        List<Future<R>> futures = new ArrayList<>(shards.size());
+        for (ShardTransport shard : shards) {
+            Callable<R> task = () -> call.call(shard);
+            futures.add(executor.submit(task));
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<R> future : futures) results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(false));
+            throw new IllegalStateException("Запит до вузлів перервано", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof IOException io) throw new UncheckedIOException(io);
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+        for (ShardTransport shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                System.err.println("Помилка закриття вузла: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+// Requests go over a small pool of connections, so concurrent callers (scatter-gather,
+// parallel rents) reach the node in parallel instead of queueing on one socket.
+class SocketShardTransport implements ShardTransport {
+    static final int POOL_SIZE = 4;
+
+    private interface Exchange<R> {
+        R run(DataInputStream in, DataOutputStream out) throws IOException;
+    }
+
+    private record Connection(Socket socket, DataInputStream in, DataOutputStream out) {
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final Semaphore permits = new Semaphore(POOL_SIZE);
+    private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    SocketShardTransport(int port) throws IOException {
+        this(InetAddress.getLoopbackAddress().getHostAddress(), port);
+    }
+
+    SocketShardTransport(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        idle.push(connect());
+    }
+
+    public boolean addItem(LibraryItem item) throws IOException {
+        return exchange(false, (in, out) -> {
+            out.writeByte(ShardServer.ADD);
+            CatalogCodec.writeItem(out, item);
+            return response(in, out).readBoolean();
+        });
+    }
+
+    public boolean removeItem(String id) throws IOException {
+        return call(ShardServer.REMOVE, id);
+    }
+
+    // The item is decoded from the node's reply: a detached copy whose setters and loan
+    // state never reach the shard. Changes go through rent, returnItem, removeItem and addItem.
+    public LibraryItem findById(String id) throws IOException {
+        return exchange(true, (in, out) -> {
+            out.writeByte(ShardServer.FIND);
+            out.writeUTF(id);
+            DataInputStream response = response(in, out);
+            return response.readBoolean() ? CatalogCodec.readItem(response) : null;
+        });
+    }
+
+    public boolean rent(String id, String user) throws IOException {
+        return call(ShardServer.RENT, id, user);
+    }
+
+    public boolean returnItem(String id) throws IOException {
+        return call(ShardServer.RETURN, id);
+    }
+
+    public List<LibraryItem> searchAll(String query, ItemFilter filter) throws IOException {
+        return exchange(true, (in, out) -> {
+            out.writeByte(ShardServer.SEARCH);
+            out.writeUTF(query);
+            out.writeByte(filter.ordinal());
+            DataInputStream response = response(in, out);
+            int count = response.readInt();
+            List<LibraryItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) items.add(CatalogCodec.readItem(response));
+            return items;
+        });
+    }
+
+    public LibraryStats getStatistics() throws IOException {
+        return exchange(true, (in, out) -> {
+            out.writeByte(ShardServer.STATS);
+            return ShardServer.readStats(response(in, out));
+        });
+    }
+
+    private boolean call(byte op, String... args) throws IOException {
+        return exchange(false, (in, out) -> {
+            out.writeByte(op);
+            for (String arg : args) out.writeUTF(arg);
+            return response(in, out).readBoolean();
+        });
+    }
+
+    private static DataInputStream response(DataInputStream in, DataOutputStream out) throws IOException {
+        out.flush();
+        if (in.readByte() == ShardServer.ERROR) throw new IllegalStateException("Помилка вузла: " + in.readUTF());
+        return in;
+    }
+
+    private <R> R exchange(boolean idempotent, Exchange<R> exchange) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Запит до вузла перервано");
+        }
+        try {
+            Connection connection = idle.poll();
+            try {
+                return attempt(connection != null ? connection : connect(), exchange);
+            } catch (IOException e) {
+                // The node probably restarted, so the other idle connections are stale too.
+                discardIdle();
+                if (!idempotent) throw e;
+            }
+            return attempt(connect(), exchange);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private <R> R attempt(Connection connection, Exchange<R> exchange) throws IOException {
+        R result;
+        try {
+            result = exchange.run(connection.in(), connection.out());
+        } catch (IOException | RuntimeException e) {
+            // A failed exchange can leave half a request buffered or a reply unread.
+            connection.close();
+            throw e;
+        }
+        release(connection);
+        return result;
+    }
+
+    private void release(Connection connection) {
+        idle.push(connection);
+        if (closed && idle.remove(connection)) connection.close();
+    }
+
+    private Connection connect() throws IOException {
+        if (closed) throw new IOException("З'єднання з вузлом закрито");
+        Socket socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        return new Connection(socket,
+                new DataInputStream(new BufferedInputStream(socket.getInputStream())),
+                new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+    }
+
+    private void discardIdle() {
+        for (Connection connection; (connection = idle.poll()) != null; ) connection.close();
+    }
+
+    public void close() {
+        closed = true;
+        discardIdle();
+    }
+}
@@ -0,0 +1,37 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class StringPool {
+    private static final class Entry {
+        final String value;
+        int references;
+
+        Entry(String value) { this.value = value; }
+    }
+
+    private final Map<String, Entry> values = new ConcurrentHashMap<>();
+
+    public String intern(String value) {
+        if (value == null) return null;
+        return values.compute(value, (key, entry) -> {
+            Entry result = entry != null ? entry : new Entry(key);
+            result.references++;
+            return result;
+        }).value;
+    }
+
+    public String lookup(String value) {
+        if (value == null) return null;
+        Entry entry = values.get(value);
+        return entry != null ? entry.value : value;
+    }
+
+    public void release(String value) {
+        if (value == null) return;
+        values.computeIfPresent(value, (key, entry) -> --entry.references == 0 ? null : entry);
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,113 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImageTest {
+    private static final List<String> QUERIES = List.of("", "т", "ом", "Том 4", "енциклопедії", "роулінг", "Автор 3", "B00", "немає");
+
+    private static LibraryManager sample() {
+        LibraryManager manager = new LibraryManager();
+        LibraryManagementApp.initData(manager);
+        for (int i = 0; i < 500; i++) {
+            manager.addItem(new Book("X" + i, "Том " + i + " енциклопедії", 1900 + i % 120, "Автор " + i % 7, 100 + i));
+            if (i % 50 == 0) manager.addItem(new DVD("V" + i, "Том " + i, 2000, "Режисер " + i % 3, 90));
+        }
+        manager.rent("B003", "Олена");
+        return manager;
+    }
+
+    private static Set<String> ids(List<LibraryItem> items) {
+        return items.stream().map(LibraryItem::getId).collect(Collectors.toSet());
+    }
+
+    private static CatalogImage image(Path dir, LibraryManager manager) throws IOException {
+        Path file = dir.resolve("catalog.image");
+        CatalogImage.write(file, 7, manager.getAllItems());
+        return CatalogImage.open(file);
+    }
+
+    @Test
+    void recordsRoundTrip(@TempDir Path dir) throws IOException {
+        LibraryManager manager = sample();
+        CatalogImage image = image(dir, manager);
+
+        assertEquals(7, image.generation());
+        assertEquals(manager.getAllItems().size(), image.size());
+        for (int i = 0; i < image.size(); i++) {
+            LibraryItem expected = manager.getAllItems().get(i);
+            assertArrayEquals(expected.toTableRow(), image.get(i).toTableRow());
+            assertEquals(expected.getLoan(), image.get(i).getLoan());
+        }
+    }
+
+    @Test
+    void searchesMatchTheManagerWithoutHydrating(@TempDir Path dir) throws IOException {
+        LibraryManager manager = sample();
+        CatalogImage image = image(dir, manager);
+
+        for (String query : QUERIES) {
+            for (ItemFilter filter : ItemFilter.values()) {
+                assertEquals(ids(manager.searchAll(query, filter)), ids(image.search(query, filter)), query + " / " + filter);
+            }
+        }
+    }
+
+    @Test
+    void hydrationFromStoredPostingsMatchesIndexingEachItem(@TempDir Path dir) throws IOException {
+        LibraryManager expected = sample();
+        LibraryManager hydrated = new LibraryManager();
+        assertEquals(expected.getTotalCount(), hydrated.hydrate(image(dir, expected), 64));
+
+        assertEquals(expected.getStatistics(), hydrated.getStatistics());
+        for (String query : QUERIES) {
+            for (ItemFilter filter : ItemFilter.values()) {
+                assertEquals(ids(expected.searchAll(query, filter)), ids(hydrated.searchAll(query, filter)), query + " / " + filter);
+            }
+        }
+        assertEquals(ids(expected.fuzzySearch("Енциклопедія", ItemFilter.ALL, 20)),
+                ids(hydrated.fuzzySearch("Енциклопедія", ItemFilter.ALL, 20)));
+
+        ((Book) hydrated.findById("X42")).setTitle("Атлас");
+        assertEquals(LibraryManager.Removal.REMOVED, hydrated.removeItem("X43"));
+        assertTrue(hydrated.addItem(new Book("X900", "Том 900 енциклопедії", 2000, "Автор", 10)));
+        assertEquals(Set.of("X42"), ids(hydrated.searchAll("атлас")));
+        assertFalse(ids(hydrated.searchAll("Том 4")).contains("X43"));
+        assertTrue(ids(hydrated.searchAll("Том 9")).contains("X900"));
+        assertFalse(ids(hydrated.searchAll("Том 42 ")).contains("X42"));
+    }
+
+    @Test
+    void emptyCatalogRoundTrips(@TempDir Path dir) throws IOException {
+        CatalogImage image = image(dir, new LibraryManager());
+
+        assertEquals(0, image.size());
+        assertTrue(image.search("том", ItemFilter.ALL).isEmpty());
+        assertEquals(0, new LibraryManager().hydrate(image, 64));
+    }
+
+    @Test
+    void damagedIndexHeaderIsReportedAsIOException(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("catalog.image");
+        CatalogImage.write(file, 1, sample().getAllItems());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            channel.read(header, 20);
+            header.flip();
+            int gramCount = header.getInt() + 100_000;
+            int postingsStart = header.getInt() + 100_000 * 12;
+            channel.write(ByteBuffer.allocate(8).putInt(gramCount).putInt(postingsStart).flip(), 20);
+        }
+
+        assertThrows(IOException.class, () -> CatalogImage.open(file));
+    }
+}
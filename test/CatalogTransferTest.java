@@ -0,0 +1,134 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogTransferTest {
+    private static LibraryManager awkwardCatalog() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B001", "Кома, \"лапки\" і\nновий рядок", 2023, "Т. Дж. Клюн", 400));
+        manager.addItem(new Book("B002", "Зворотна \\ коса\tриска", 1969, "Марио Пьюзо", 608));
+        manager.addItem(new Magazine("M001", "Контроль \u0001 символ", 2023, 145, "NG, Society"));
+        manager.addItem(new DVD("D001", "Матриця\r\nПерезавантаження", 1999, "Вачовскі", 136));
+        Book rented = new Book("B003", "Гаррі Поттер", 1997, "Дж. Роулінг", 350);
+        rented.restoreLoan(new Loan("Олена", LocalDate.of(2026, 1, 5)));
+        manager.addItem(rented);
+        return manager;
+    }
+
+    private static void assertSameCatalog(LibraryManager expected, LibraryManager actual) {
+        assertEquals(expected.getTotalCount(), actual.getTotalCount());
+        for (LibraryItem item : expected.getAllItems()) {
+            LibraryItem copy = actual.findById(item.getId());
+            assertNotNull(copy, item.getId());
+            assertEquals(item.getClass(), copy.getClass());
+            assertArrayEquals(item.toTableRow(), copy.toTableRow());
+            assertEquals(item.getLoan(), copy.getLoan());
+        }
+    }
+
+    private static CatalogTransfer.ImportReport importInto(LibraryManager manager, Path file) throws IOException {
+        return CatalogTransfer.importCatalog(file, manager, processed -> {});
+    }
+
+    @Test
+    void csvRoundTripsQuotesCommasAndNewlines(@TempDir Path dir) throws IOException {
+        LibraryManager source = awkwardCatalog();
+        Path file = dir.resolve("catalog.csv");
+        assertEquals(5, CatalogTransfer.exportCatalog(file, source));
+
+        LibraryManager target = new LibraryManager();
+        assertEquals(new CatalogTransfer.ImportReport(5, 0), importInto(target, file));
+        assertSameCatalog(source, target);
+    }
+
+    @Test
+    void jsonRoundTripsEscapes(@TempDir Path dir) throws IOException {
+        LibraryManager source = awkwardCatalog();
+        Path file = dir.resolve("catalog.json");
+        assertEquals(5, CatalogTransfer.exportCatalog(file, source));
+
+        LibraryManager target = new LibraryManager();
+        assertEquals(new CatalogTransfer.ImportReport(5, 0), importInto(target, file));
+        assertSameCatalog(source, target);
+    }
+
+    @Test
+    void invalidRecordsAreSkippedAndCounted(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("catalog.csv");
+        Files.writeString(file, String.join("\r\n",
+                "type,id,title,year,author,pages,issueNumber,publisher,director,duration",
+                "book,B1,Перша,2001,Автор,100,,,,",
+                "",
+                "book,B2,Без сторінок,2001,Автор,,,,,",
+                "comic,C1,Невідомий тип,2001,,,,,,",
+                "dvd,D1,\"Фільм, частина 2\",2010,,,,,Режисер,120",
+                "book,B1,Дублікат,2001,Автор,100,,,,"), StandardCharsets.UTF_8);
+
+        LibraryManager manager = new LibraryManager();
+        assertEquals(new CatalogTransfer.ImportReport(2, 3), importInto(manager, file));
+        assertEquals("Фільм, частина 2", manager.findById("D1").getTitle());
+        assertEquals("Перша", manager.findById("B1").getTitle());
+    }
+
+    @Test
+    void unterminatedCsvQuoteFails(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("catalog.csv");
+        Files.writeString(file, "type,id,title,year,author,pages\nbook,B1,\"Без кінця,2001,Автор,100\n", StandardCharsets.UTF_8);
+
+        IOException error = assertThrows(IOException.class, () -> importInto(new LibraryManager(), file));
+        assertInstanceOf(EOFException.class, error.getCause());
+    }
+
+    @Test
+    void truncatedJsonStopsInsertingBeforeReportingTheFailure(@TempDir Path dir) throws IOException {
+        int rows = CatalogTransfer.CHUNK_SIZE * 5;
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) json.append(',');
+            json.append("\n{\"type\":\"book\",\"id\":\"B").append(i).append("\",\"title\":\"Книга ").append(i)
+                    .append("\",\"year\":2000,\"author\":\"Автор\",\"pages\":100}");
+        }
+        Path file = dir.resolve("catalog.json");
+        Files.writeString(file, json.substring(0, json.length() - 20), StandardCharsets.UTF_8);
+
+        LibraryManager manager = new LibraryManager();
+        IOException error = assertThrows(IOException.class, () -> importInto(manager, file));
+        int inserted = manager.getTotalCount();
+        assertEquals(rows - CatalogTransfer.CHUNK_SIZE, inserted);
+        assertTrue(error.getMessage().contains(String.valueOf(inserted)), error.getMessage());
+    }
+
+    @Test
+    void malformedJsonIsReportedAsIOException(@TempDir Path dir) throws IOException {
+        String record = "{\"type\":\"book\",\"id\":\"B1\",\"title\":\"Т\",\"year\":2000,\"author\":\"А\",\"pages\":1}";
+        for (String text : List.of("[", "[" + record, "[" + record + ",", "[{\"title\":\"\\u04", "[{\"title\":\"\\u04zz\"}]",
+                "[{\"title\":\"\\", "[{\"title\" \"x\"}]", "[" + record + " " + record + "]")) {
+            Path file = dir.resolve("catalog.json");
+            Files.writeString(file, text, StandardCharsets.UTF_8);
+            assertThrows(IOException.class, () -> importInto(new LibraryManager(), file), text);
+        }
+    }
+
+    @Test
+    void jsonObjectsAcceptNullsNumbersAndWhitespace() throws IOException {
+        PushbackReader in = new PushbackReader(new StringReader(" { \"id\" : \"B\\u0031\" , \"year\":2000,\n\"rentedBy\": null } "), 1);
+
+        Map<String, String> record = CatalogTransfer.JsonRecordReader.readObject(in);
+        assertEquals("B1", record.get("id"));
+        assertEquals("2000", record.get("year"));
+        assertTrue(record.containsKey("rentedBy"));
+        assertNull(record.get("rentedBy"));
+    }
+}
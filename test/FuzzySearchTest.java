@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzySearchTest {
+    private static List<String> ids(List<LibraryItem> items) {
+        return items.stream().map(LibraryItem::getId).toList();
+    }
+
+    @Test
+    void misspelledAuthorIsFoundThroughThePartialGramFallback() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B001", "Хрещений батько", 1969, "Марио Пьюзо", 608));
+        manager.addItem(new Book("B002", "Дім у морі", 2020, "Т. Дж. Клюн", 400));
+        manager.addItem(new DVD("D001", "Матриця", 1999, "Вачовскі", 136));
+
+        // One edit can break every trigram of a four-letter query, so no shared gram is
+        // required: candidates come from the query's halves ("пю", "зо") and are confirmed
+        // by edit distance.
+        FuzzySearch search = new FuzzySearch("Пюзо", 10);
+        assertEquals(0, search.getMinSharedGrams());
+        assertEquals(List.of("пю", "зо"), search.getPieces());
+
+        assertEquals(List.of("B001"), ids(manager.fuzzySearch("Пюзо", ItemFilter.ALL, 10)));
+        assertEquals(List.of("B001"), ids(manager.fuzzySearch("пюзо", ItemFilter.BOOKS, 10)));
+        assertTrue(manager.fuzzySearch("Пюзо", ItemFilter.DVDS, 10).isEmpty());
+    }
+
+    @Test
+    void queriesShorterThanATrigramMatchExactly() {
+        assertEquals(0, FuzzySearch.maxEdits(2));
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B001", "Ніч", 2000, "Автор", 100));
+        manager.addItem(new Book("B002", "Ми", 2000, "Автор", 100));
+
+        assertEquals(List.of("B001"), ids(manager.fuzzySearch("ні", ItemFilter.ALL, 10)));
+        assertTrue(manager.fuzzySearch("нм", ItemFilter.ALL, 10).isEmpty());
+    }
+
+    @Test
+    void hitsAreRankedByFieldWeightThenDistanceThenId() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Magazine("M001", "Вісник", 2020, 1, "Море"));
+        manager.addItem(new DVD("D001", "Фільм", 2020, "Моро", 90));
+        manager.addItem(new Book("B002", "Синє море", 2020, "Автор", 100));
+        manager.addItem(new Book("B001", "Море", 2020, "Автор", 100));
+        manager.addItem(new Book("B003", "Моря", 2020, "Автор", 100));
+        manager.addItem(new Book("B004", "Гори", 2020, "Автор", 100));
+
+        // Title matches weigh 3, author, publisher and director matches 2; each edit costs
+        // 1/(length + 1) of the weight, and equal scores fall back to the id.
+        List<String> expected = List.of("B001", "B002", "B003", "M001", "D001");
+        assertEquals(expected, ids(manager.fuzzySearch("море", ItemFilter.ALL, 10)));
+        assertEquals(expected.subList(0, 3), ids(manager.fuzzySearch("море", ItemFilter.ALL, 3)));
+        assertEquals(List.of("M001"), ids(manager.fuzzySearch("море", ItemFilter.MAGAZINES, 10)));
+        assertTrue(manager.fuzzySearch("море", ItemFilter.ALL, 0).isEmpty());
+
+        FuzzySearch search = new FuzzySearch("море", 10);
+        assertEquals(3.0, search.score(manager.findById("B001")), 1e-9);
+        assertEquals(3.0 * 4 / 5, search.score(manager.findById("B003")), 1e-9);
+        assertEquals(2.0, search.score(manager.findById("M001")), 1e-9);
+        assertEquals(2.0 * 4 / 5, search.score(manager.findById("D001")), 1e-9);
+        assertEquals(0.0, search.score(manager.findById("B004")));
+    }
+
+    @Test
+    void distanceIsTheBestSubstringAlignmentCappedAtTheLimit() {
+        assertEquals(0, FuzzySearch.distance("пьюзо", "марио пьюзо", 2));
+        assertEquals(1, FuzzySearch.distance("пюзо", "марио пьюзо", 2));
+        assertEquals(2, FuzzySearch.distance("мтрця", "матриця", 2));
+        assertEquals(3, FuzzySearch.distance("абвгд", "матриця", 2));
+    }
+}
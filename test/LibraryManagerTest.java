@@ -0,0 +1,203 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryManagerTest {
+    private static final int ITEMS = 50;
+    private static final int THREADS = 8;
+
+    @Test
+    void loanBookkeepingSettlesAfterConcurrentRentAndReturn(@TempDir Path directory) throws Exception {
+        LibraryManager manager = new LibraryManager();
+        LoanLedger ledger = new LoanLedger(directory.resolve("loans.log"));
+        ledger.open();
+        manager.addListener(ledger);
+        for (int i = 0; i < ITEMS; i++) manager.addItem(new Book("B" + i, "Книга " + i, 2000, "Автор", 100));
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String user = "u" + t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20_000; i++) {
+                    String id = "B" + random.nextInt(ITEMS);
+                    if (!manager.rent(id, user)) manager.returnItem(id);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+        for (int i = 0; i < ITEMS; i++) manager.returnItem("B" + i);
+
+        LibraryStats stats = manager.getStatistics();
+        assertEquals(0, stats.rented());
+        assertEquals(ITEMS, stats.available());
+        assertTrue(stats.rentalsByUser().isEmpty(), stats.rentalsByUser()::toString);
+        assertNull(stats.oldestLoan());
+        assertTrue(ledger.overdue(LocalDate.now().plusYears(1)).isEmpty());
+        assertEquals(ITEMS, manager.getItems(ItemFilter.AVAILABLE).size());
+        ledger.close();
+    }
+
+    @Test
+    void rentedItemsAreCountedPerUser() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B1", "Дім", 2023, "Клюн", 400));
+        manager.addItem(new DVD("D1", "Матриця", 1999, "Вачовскі", 136));
+
+        assertTrue(manager.rent("B1", "Олена"));
+        assertFalse(manager.rent("B1", "Петро"));
+        assertTrue(manager.rent("D1", "Олена"));
+        assertEquals(2, manager.getRentalCount("Олена"));
+        assertEquals("B1", manager.getOldestLoan().itemId());
+
+        assertTrue(manager.returnItem("B1"));
+        assertFalse(manager.returnItem("B1"));
+        assertEquals(1, manager.getRentedCount());
+        assertEquals(1, manager.getRentalCount("Олена"));
+        assertEquals("D1", manager.getOldestLoan().itemId());
+    }
+
+    @Test
+    void rentedItemsAreNotRemoved() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B1", "Дім", 2023, "Клюн", 400));
+        manager.addItem(new Book("B2", "Море", 2020, "Клюн", 300));
+        manager.rent("B1", "Олена");
+
+        assertEquals(LibraryManager.Removal.RENTED, manager.removeItem("B1"));
+        assertFalse(manager.removeAll(List.of("B1", "B2")));
+        assertEquals(2, manager.getTotalCount());
+        assertEquals(LibraryManager.Removal.REMOVED, manager.removeItem("B2"));
+        assertEquals(LibraryManager.Removal.NOT_FOUND, manager.removeItem("B2"));
+        assertTrue(manager.discardItem("B1"));
+        assertEquals(0, manager.getRentedCount());
+    }
+
+    @Test
+    void itemsKeepInsertionOrderAcrossRemovalsAndCompaction() {
+        LibraryManager manager = new LibraryManager();
+        List<String> expected = new ArrayList<>();
+        int next = 0;
+        for (; next < LibraryManager.COMPACT_MIN_SLOTS * 2; next++) {
+            manager.addItem(new Book("B" + next, "Книга " + next, 2000 + next % 20, "Автор", 100));
+            expected.add("B" + next);
+        }
+        // Drop every other item, then add more: new items go after the survivors, not into the holes.
+        for (int i = 0; i < LibraryManager.COMPACT_MIN_SLOTS * 2; i += 2) {
+            assertEquals(LibraryManager.Removal.REMOVED, manager.removeItem("B" + i));
+            expected.remove("B" + i);
+        }
+        manager.rent("B1", "Олена");
+        assertTrue(manager.removeAll(List.of("B3", "B5")));
+        expected.removeAll(List.of("B3", "B5"));
+        for (int i = 0; i < 10; i++, next++) {
+            manager.addItem(new Book("B" + next, "Книга " + next, 2005, "Автор", 100));
+            expected.add("B" + next);
+        }
+
+        assertEquals(expected, ids(manager.getAllItems()));
+        assertEquals(expected, ids(manager.searchAll("книга")));
+        assertEquals(expected.stream().filter(id -> !id.equals("B1")).toList(), ids(manager.getItems(ItemFilter.AVAILABLE)));
+        List<String> from2005 = manager.getAllItems().stream().filter(item -> item.getYear() == 2005).map(LibraryItem::getId).toList();
+        assertEquals(from2005, ids(manager.query(LibraryQuery.all().between(LibraryQuery.Field.YEAR, 2005, 2005))));
+        assertEquals(List.of("B1"), ids(manager.getItems(ItemFilter.RENTED)));
+    }
+
+    // Logs each listener callback with the ids it carried, so a batch shows up as one entry.
+    private static List<String> record(LibraryManager manager) {
+        List<String> events = new ArrayList<>();
+        manager.addListener(new LibraryListener() {
+            public void itemRemoved(LibraryItem item) { events.add("itemRemoved " + item.getId()); }
+            public void itemChanged(LibraryItem item) { events.add("itemChanged " + item.getId()); }
+            public void loanChanged(LibraryItem item, Loan previous, Loan current) { events.add("loanChanged " + item.getId()); }
+            public void itemsRemoved(List<LibraryItem> items) { events.add("itemsRemoved " + ids(items)); }
+            public void loansChanged(List<LoanChange> changes) {
+                events.add("loansChanged " + changes.stream().map(change -> change.item().getId()
+                        + (change.current() == null ? "-" : "+" + change.current().user())).toList());
+            }
+        });
+        return events;
+    }
+
+    private static LibraryManager batchCatalog() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B1", "Дім", 2023, "Клюн", 400));
+        manager.addItem(new Magazine("M1", "Вісник", 2022, 3, "Порт"));
+        manager.addItem(new DVD("D1", "Матриця", 1999, "Вачовскі", 136));
+        return manager;
+    }
+
+    @Test
+    void batchLoansApplyToEveryItemWithOneNotification() {
+        LibraryManager manager = batchCatalog();
+        List<String> events = record(manager);
+
+        assertTrue(manager.rentAll(List.of("B1", "D1", "B1"), "Олена"));
+        assertEquals(List.of("loansChanged [B1+Олена, D1+Олена]"), events);
+        assertEquals(2, manager.getRentedCount());
+        assertEquals(2, manager.getRentalCount("Олена"));
+        assertEquals("Олена", manager.findById("D1").getLoan().user());
+        assertEquals(List.of("B1", "D1"), ids(manager.getItems(ItemFilter.RENTED)));
+
+        events.clear();
+        assertTrue(manager.returnAll(List.of("D1", "B1")));
+        assertEquals(List.of("loansChanged [D1-, B1-]"), events);
+        assertEquals(0, manager.getRentedCount());
+        assertEquals(0, manager.getRentalCount("Олена"));
+        assertNull(manager.getOldestLoan());
+        assertEquals(3, manager.getItems(ItemFilter.AVAILABLE).size());
+    }
+
+    @Test
+    void failedBatchesChangeNothingAndStaySilent() {
+        LibraryManager manager = batchCatalog();
+        manager.rent("M1", "Петро");
+        List<String> events = record(manager);
+
+        assertFalse(manager.rentAll(List.of("B1", "M1"), "Олена"));
+        assertFalse(manager.rentAll(List.of("B1", "X1"), "Олена"));
+        assertFalse(manager.returnAll(List.of("M1", "B1")));
+        assertFalse(manager.removeAll(List.of("B1", "M1")));
+        assertFalse(manager.removeAll(List.of("D1", "X1")));
+
+        assertTrue(events.isEmpty(), events::toString);
+        assertTrue(manager.findById("B1").isAvailable());
+        assertEquals("Петро", manager.findById("M1").getLoan().user());
+        assertEquals(3, manager.getTotalCount());
+        assertEquals(1, manager.getRentedCount());
+    }
+
+    @Test
+    void batchRemovalDropsEveryItemWithOneNotification() {
+        LibraryManager manager = batchCatalog();
+        List<String> events = record(manager);
+
+        assertTrue(manager.removeAll(List.of("D1", "B1")));
+        assertEquals(List.of("itemsRemoved [D1, B1]"), events);
+        assertEquals(1, manager.getTotalCount());
+        assertEquals(0, manager.getBookCount());
+        assertEquals(0, manager.getDvdCount());
+        assertNull(manager.findById("B1"));
+        assertTrue(manager.searchAll("матр").isEmpty());
+        assertEquals(List.of("M1"), ids(manager.getAllItems()));
+    }
+
+    private static List<String> ids(List<LibraryItem> items) {
+        return items.stream().map(LibraryItem::getId).toList();
+    }
+}
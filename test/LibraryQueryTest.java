@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryQueryTest {
+    @Test
+    void rangeQueriesMatchAFullScanAfterEdits() {
+        Random random = new Random(5);
+        LibraryManager manager = new LibraryManager();
+        for (int i = 0; i < 3_000; i++) {
+            int year = 1950 + random.nextInt(75);
+            switch (i % 3) {
+                case 0 -> manager.addItem(new Book("B" + i, "книга " + i, year, "Автор", 50 + random.nextInt(900)));
+                case 1 -> manager.addItem(new Magazine("M" + i, "журнал " + i, year, 1 + random.nextInt(300), "Vivat"));
+                default -> manager.addItem(new DVD("D" + i, "фільм " + i, year, "Нолан", 60 + random.nextInt(150)));
+            }
+        }
+        for (int i = 0; i < 300; i += 3) ((Book) manager.findById("B" + i)).setPages(1_000);
+        for (int i = 2; i < 300; i += 3) manager.removeItem("D" + i);
+
+        List<LibraryQuery> queries = List.of(
+                LibraryQuery.all().filter(ItemFilter.DVDS).between(LibraryQuery.Field.YEAR, 1990, 2000)
+                        .atLeast(LibraryQuery.Field.DURATION, 121),
+                LibraryQuery.all().between(LibraryQuery.Field.PAGES, 990, 1_000),
+                LibraryQuery.all().text("журнал 1").between(LibraryQuery.Field.ISSUE_NUMBER, 10, 200),
+                LibraryQuery.all().filter(ItemFilter.BOOKS).between(LibraryQuery.Field.YEAR, 3000, 4000));
+        for (LibraryQuery query : queries) {
+            assertEquals(manager.findAll(query::test), manager.query(query));
+        }
+    }
+}
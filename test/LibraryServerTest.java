@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private LibraryServer server;
+
+    private LibraryManager start(LibraryManager manager) throws IOException {
+        LibraryManagementApp.initData(manager);
+        server = new LibraryServer(manager, 0);
+        server.start();
+        return manager;
+    }
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.close();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void badParametersAreClientErrors() throws Exception {
+        start(new LibraryManager());
+        assertEquals(400, send("GET", "/items?limit=abc").statusCode());
+        assertEquals(400, send("GET", "/items?filter=NOPE").statusCode());
+        assertEquals(404, send("GET", "/items/X404").statusCode());
+    }
+
+    @Test
+    void listingIsPagedByDefault() throws Exception {
+        LibraryManager manager = start(new LibraryManager());
+        for (int i = 0; i < LibraryServer.DEFAULT_PAGE_SIZE * 2; i++) {
+            manager.addItem(new Book("P" + i, "Сторінка " + i, 2000, "Автор", 100));
+        }
+        int total = manager.getTotalCount();
+
+        assertEquals(LibraryServer.DEFAULT_PAGE_SIZE, count(send("GET", "/items").body()));
+        assertEquals(total - 10, count(send("GET", "/items?offset=10&limit=" + LibraryServer.MAX_PAGE_SIZE).body()));
+        assertEquals(5, count(send("GET", "/items?offset=" + (total - 5)).body()));
+        assertEquals(0, count(send("GET", "/items?limit=0").body()));
+        assertEquals(400, send("GET", "/items?limit=" + (LibraryServer.MAX_PAGE_SIZE + 1)).statusCode());
+    }
+
+    private static int count(String json) {
+        return json.split("\"id\":", -1).length - 1;
+    }
+
+    @Test
+    void internalFailuresAreServerErrors() throws Exception {
+        start(new LibraryManager() {
+            public List<LibraryItem> query(LibraryQuery query) {
+                throw new UncheckedIOException(new IOException("диск недоступний"));
+            }
+        });
+        HttpResponse<String> response = send("GET", "/items?q=море");
+        assertEquals(500, response.statusCode());
+        assertFalse(response.body().contains("диск"));
+    }
+
+    @Test
+    void rentedItemsAreNotDeleted() throws Exception {
+        LibraryManager manager = start(new LibraryManager());
+        assertEquals(200, send("POST", "/items/B001/rent?user=Olena").statusCode());
+        assertEquals(409, send("DELETE", "/items/B001").statusCode());
+        assertNotNull(manager.findById("B001"));
+
+        assertEquals(200, send("POST", "/items/B001/return").statusCode());
+        assertEquals(204, send("DELETE", "/items/B001").statusCode());
+        assertNull(manager.findById("B001"));
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryTableModelTest {
+    private static Book book(int n) {
+        return new Book("B" + n, "Книга " + n, 2000, "Автор", 100);
+    }
+
+    // Mirrors the rows a JTable would hold by replaying the model's events.
+    private static List<LibraryItem> observe(LibraryTableModel model) {
+        List<LibraryItem> view = new ArrayList<>();
+        model.addTableModelListener(event -> {
+            if (event.getType() == TableModelEvent.INSERT) view.add(event.getFirstRow(), model.getItemAt(event.getFirstRow()));
+            else if (event.getType() == TableModelEvent.DELETE) view.remove(event.getFirstRow());
+            else if (event.getFirstRow() == TableModelEvent.HEADER_ROW || event.getLastRow() == Integer.MAX_VALUE) {
+                view.clear();
+                for (int row = 0; row < model.getRowCount(); row++) view.add(model.getItemAt(row));
+            }
+        });
+        return view;
+    }
+
+    private static void assertMatches(List<LibraryItem> expected, LibraryTableModel model) {
+        assertEquals(expected.size(), model.getRowCount());
+        for (int row = 0; row < expected.size(); row++) {
+            assertSame(expected.get(row), model.getItemAt(row));
+            assertEquals(row, model.rowOf(expected.get(row)));
+        }
+    }
+
+    @Test
+    void randomEditsMatchAReferenceList() {
+        Random random = new Random(7);
+        LibraryTableModel model = new LibraryTableModel();
+        List<LibraryItem> view = observe(model);
+        List<LibraryItem> expected = new ArrayList<>();
+        List<LibraryItem> gone = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < 500; i++) expected.add(book(next++));
+        model.setItems(new ArrayList<>(expected));
+
+        for (int op = 0; op < 200_000; op++) {
+            // Alternate between growing and shrinking phases so the tombstones get compacted.
+            int adds = (op / 25_000) % 2 == 0 ? 5 : 3;
+            int choice = random.nextInt(10);
+            if (choice < adds || expected.isEmpty()) {
+                LibraryItem item = book(next++);
+                model.addRow(item);
+                expected.add(item);
+            } else if (choice < 8) {
+                int row = random.nextInt(expected.size());
+                assertSame(expected.get(row), model.getItemAt(row));
+                model.removeRow(row);
+                gone.add(expected.remove(row));
+            } else if (choice == 8) {
+                int row = random.nextInt(expected.size());
+                assertEquals(row, model.rowOf(expected.get(row)));
+                assertEquals(expected.get(row).getId(), model.getValueAt(row, 0));
+            } else if (!gone.isEmpty()) {
+                assertEquals(-1, model.rowOf(gone.get(random.nextInt(gone.size()))));
+            }
+            if (op % 20_000 == 0) assertMatches(expected, model);
+        }
+        assertMatches(expected, model);
+        assertEquals(expected, view);
+    }
+
+    @Test
+    void drainingAndRefillingCompactsTheTombstones() {
+        LibraryTableModel model = new LibraryTableModel();
+        List<LibraryItem> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) expected.add(book(i));
+        model.setItems(new ArrayList<>(expected));
+
+        while (expected.size() > 10) {
+            model.removeRow(0);
+            expected.remove(0);
+        }
+        assertMatches(expected, model);
+        for (int i = 5_000; i < 6_000; i++) {
+            LibraryItem item = book(i);
+            model.addRow(item);
+            expected.add(item);
+        }
+        assertMatches(expected, model);
+
+        model.setItems(List.of());
+        assertEquals(0, model.getRowCount());
+        assertEquals(-1, model.rowOf(expected.get(0)));
+    }
+}
@@ -0,0 +1,132 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanLedgerTest {
+    private static LibraryManager managerWith(LoanLedger ledger, String... ids) {
+        LibraryManager manager = new LibraryManager();
+        manager.addListener(ledger);
+        for (String id : ids) manager.addItem(new Book(id, "Книга " + id, 2000, "Автор", 100));
+        return manager;
+    }
+
+    private static List<String> describe(List<LoanLedger.LoanEvent> events) {
+        return events.stream().map(event -> event.kind() + " " + event.itemId() + " " + event.user()).toList();
+    }
+
+    @Test
+    void historyIsIndexedByUserAndItemAndSurvivesReopening(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("loans.log");
+        LoanLedger ledger = new LoanLedger(file);
+        ledger.open();
+        LibraryManager manager = managerWith(ledger, "B1", "B2");
+        manager.rent("B1", "Олена");
+        manager.returnItem("B1");
+        manager.rent("B2", "Олена");
+        manager.rent("B1", "Петро");
+        manager.rentAll(List.of("B2"), "Петро");
+
+        List<String> olena = List.of("RENT B1 Олена", "RETURN B1 Олена", "RENT B2 Олена");
+        List<String> b1 = List.of("RENT B1 Олена", "RETURN B1 Олена", "RENT B1 Петро");
+        assertEquals(olena, describe(ledger.historyForUser("Олена")));
+        assertEquals(b1, describe(ledger.historyForItem("B1")));
+        assertEquals(List.of("RENT B1 Петро"), describe(ledger.historyForUser("Петро")));
+        assertTrue(ledger.historyForUser("Ніхто").isEmpty());
+        ledger.close();
+
+        LoanLedger reopened = new LoanLedger(file);
+        reopened.open();
+        assertEquals(olena, describe(reopened.historyForUser("Олена")));
+        assertEquals(b1, describe(reopened.historyForItem("B1")));
+        reopened.close();
+    }
+
+    @Test
+    void truncatedTailIsDroppedAndAppendingContinues(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("loans.log");
+        LoanLedger ledger = new LoanLedger(file);
+        ledger.open();
+        LibraryManager manager = managerWith(ledger, "B1");
+        manager.rent("B1", "Олена");
+        manager.returnItem("B1");
+        ledger.close();
+        Files.write(file, new byte[]{ 0, 0, 5, 'B' }, StandardOpenOption.APPEND);
+
+        LoanLedger reopened = new LoanLedger(file);
+        reopened.open();
+        assertEquals(2, reopened.historyForItem("B1").size());
+        managerWith(reopened, "B1").rent("B1", "Петро");
+        reopened.close();
+
+        LoanLedger last = new LoanLedger(file);
+        last.open();
+        assertEquals(List.of("RENT B1 Олена", "RETURN B1 Олена", "RENT B1 Петро"), describe(last.historyForItem("B1")));
+        last.close();
+    }
+
+    @Test
+    void concurrentLoansAreAllWrittenBeforeClose(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("loans.log");
+        LoanLedger ledger = new LoanLedger(file);
+        ledger.open();
+        String[] ids = new String[20];
+        for (int i = 0; i < ids.length; i++) ids[i] = "B" + i;
+        LibraryManager manager = managerWith(ledger, ids);
+        AtomicInteger events = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String user = "u" + t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    String id = ids[i % ids.length];
+                    if (manager.rent(id, user) || manager.returnItem(id)) events.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        ledger.close();
+
+        LoanLedger reopened = new LoanLedger(file);
+        reopened.open();
+        int logged = 0;
+        for (String id : ids) logged += reopened.historyForItem(id).size();
+        assertEquals(events.get(), logged);
+        reopened.close();
+    }
+
+    @Test
+    void overdueLoansAreFlaggedOncePerWindow(@TempDir Path dir) throws IOException {
+        LoanLedger ledger = new LoanLedger(dir.resolve("loans.log"));
+        LocalDate today = LocalDate.now();
+        LibraryManager manager = managerWith(ledger);
+        Book late = new Book("B1", "Прострочена", 2000, "Автор", 100);
+        late.restoreLoan(new Loan("Олена", today.minusDays(LoanLedger.LOAN_DAYS + 3)));
+        Book soon = new Book("B2", "Скоро", 2000, "Автор", 100);
+        soon.restoreLoan(new Loan("Петро", today.minusDays(LoanLedger.LOAN_DAYS - 2)));
+        Book returned = new Book("B3", "Повернена", 2000, "Автор", 100);
+        returned.restoreLoan(new Loan("Ірина", today.minusDays(LoanLedger.LOAN_DAYS + 5)));
+        manager.addAll(List.of(late, soon, returned));
+        manager.returnItem("B3");
+
+        assertEquals(List.of("B1"), ledger.overdue(today).stream().map(LoanLedger.DueLoan::itemId).toList());
+        assertEquals(List.of("B1"), ledger.newlyOverdue(today).stream().map(LoanLedger.DueLoan::itemId).toList());
+        assertTrue(ledger.newlyOverdue(today).isEmpty());
+        assertEquals(List.of("B2"), ledger.newlyOverdue(today.plusDays(3)).stream().map(LoanLedger.DueLoan::itemId).toList());
+        assertTrue(ledger.newlyOverdue(today.plusDays(30)).isEmpty());
+        assertEquals(2, ledger.overdue(today.plusDays(30)).size());
+
+        manager.returnItem("B1");
+        assertEquals(List.of("B2"), ledger.overdue(today.plusDays(30)).stream().map(LoanLedger.DueLoan::itemId).toList());
+        assertEquals(List.of(LoanLedger.Kind.RETURN), ledger.historyForItem("B1").stream().map(LoanLedger.LoanEvent::kind).toList());
+    }
+}
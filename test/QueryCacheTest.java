@@ -0,0 +1,167 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    private static LibraryManager catalog() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B1", "Хрещений батько", 1969, "Марио Пьюзо", 608));
+        manager.addItem(new Book("B2", "Дім у морі", 2020, "Т. Дж. Клюн", 400));
+        manager.addItem(new Magazine("M1", "Морський вісник", 2023, 12, "Порт"));
+        manager.addItem(new DVD("D1", "Матриця", 1999, "Вачовскі", 136));
+        return manager;
+    }
+
+    // Runs every query once so it lands in the cache.
+    private static void warm(LibraryManager manager, List<String> queries, ItemFilter... filters) {
+        for (String query : queries) {
+            for (ItemFilter filter : filters) manager.searchAll(query, filter);
+        }
+    }
+
+    private static boolean cached(LibraryManager manager, String query, ItemFilter filter) {
+        return manager.getQueryCache().get(query, filter) != null;
+    }
+
+    private static List<LibraryItem> items(int count) {
+        return new ArrayList<>(Collections.nCopies(count, new Book("B", "Книга", 2000, "Автор", 1)));
+    }
+
+    @Test
+    void rentDropsOnlyLoanSensitiveEntriesThatMatchTheItem() {
+        LibraryManager manager = catalog();
+        warm(manager, List.of("", "хрещ", "мор"), ItemFilter.ALL, ItemFilter.AVAILABLE, ItemFilter.RENTED, ItemFilter.BOOKS);
+        QueryCache cache = manager.getQueryCache();
+        long allVersion = cache.version(ItemFilter.ALL);
+        long availableVersion = cache.version(ItemFilter.AVAILABLE);
+
+        assertTrue(manager.rent("B1", "Олена"));
+
+        assertEquals(allVersion, cache.version(ItemFilter.ALL));
+        assertNotEquals(availableVersion, cache.version(ItemFilter.AVAILABLE));
+        for (String query : List.of("", "хрещ")) {
+            assertFalse(cached(manager, query, ItemFilter.AVAILABLE), query);
+            assertFalse(cached(manager, query, ItemFilter.RENTED), query);
+            assertTrue(cached(manager, query, ItemFilter.BOOKS), query);
+        }
+        assertTrue(cached(manager, "хрещ", ItemFilter.ALL));
+        assertTrue(cached(manager, "мор", ItemFilter.AVAILABLE));
+        assertTrue(cached(manager, "мор", ItemFilter.RENTED));
+        assertEquals(List.of("B1"), manager.searchAll("", ItemFilter.RENTED).stream().map(LibraryItem::getId).toList());
+
+        assertTrue(manager.returnItem("B1"));
+        assertTrue(manager.searchAll("хрещ", ItemFilter.RENTED).isEmpty());
+    }
+
+    @Test
+    void editDropsEntriesMatchingTheOldOrNewValueAndOnlyThose() {
+        LibraryManager manager = catalog();
+        List<String> queries = List.of("", "хрещ", "сонце", "мор", "матр", "ві");
+        warm(manager, queries, ItemFilter.ALL, ItemFilter.BOOKS, ItemFilter.DVDS);
+
+        manager.findById("B1").setTitle("Сонце над морем");
+
+        for (ItemFilter filter : List.of(ItemFilter.ALL, ItemFilter.BOOKS)) {
+            assertFalse(cached(manager, "хрещ", filter));
+            assertFalse(cached(manager, "сонце", filter));
+            assertFalse(cached(manager, "мор", filter));
+            assertTrue(cached(manager, "матр", filter));
+            assertTrue(cached(manager, "ві", filter));
+        }
+        assertTrue(cached(manager, "", ItemFilter.BOOKS));
+        // A book edit cannot change what a DVD-only query returns.
+        for (String query : queries) assertTrue(cached(manager, query, ItemFilter.DVDS), query);
+        assertEquals(List.of("B1"), manager.searchAll("сонце").stream().map(LibraryItem::getId).toList());
+        assertTrue(manager.searchAll("хрещ").isEmpty());
+    }
+
+    @Test
+    void addAndRemoveDropMatchingEntriesOfTheItemsType() {
+        LibraryManager manager = catalog();
+        warm(manager, List.of("", "мор", "матр"), ItemFilter.ALL, ItemFilter.AVAILABLE, ItemFilter.MAGAZINES, ItemFilter.DVDS);
+
+        manager.addItem(new DVD("D2", "Море спокою", 2024, "Режисер", 90));
+        assertFalse(cached(manager, "", ItemFilter.AVAILABLE));
+        assertFalse(cached(manager, "", ItemFilter.DVDS));
+        assertFalse(cached(manager, "мор", ItemFilter.ALL));
+        assertFalse(cached(manager, "мор", ItemFilter.DVDS));
+        assertTrue(cached(manager, "матр", ItemFilter.DVDS));
+        assertTrue(cached(manager, "", ItemFilter.MAGAZINES));
+        assertTrue(cached(manager, "мор", ItemFilter.MAGAZINES));
+
+        warm(manager, List.of("", "мор"), ItemFilter.ALL, ItemFilter.DVDS);
+        assertEquals(LibraryManager.Removal.REMOVED, manager.removeItem("D1"));
+        assertFalse(cached(manager, "", ItemFilter.DVDS));
+        assertFalse(cached(manager, "матр", ItemFilter.DVDS));
+        assertTrue(cached(manager, "мор", ItemFilter.DVDS));
+        assertTrue(cached(manager, "мор", ItemFilter.ALL));
+    }
+
+    @Test
+    void shortQueriesAreMatchedWithoutGrams() {
+        LibraryManager manager = catalog();
+        warm(manager, List.of("я", "ц", "ри"), ItemFilter.ALL);
+
+        manager.findById("D1").setTitle("Трилогія");
+
+        assertFalse(cached(manager, "я", ItemFilter.ALL));
+        assertFalse(cached(manager, "ри", ItemFilter.ALL));
+        assertFalse(cached(manager, "ц", ItemFilter.ALL));
+        assertEquals(List.of("D1"), manager.searchAll("ія").stream().map(LibraryItem::getId).toList());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedFirst() {
+        QueryCache cache = new QueryCache(3, 1_000);
+        for (String query : List.of("а", "б", "в")) cache.put(query, ItemFilter.ALL, items(1), cache.version(ItemFilter.ALL));
+        assertNotNull(cache.get("а", ItemFilter.ALL));
+
+        cache.put("г", ItemFilter.ALL, items(1), cache.version(ItemFilter.ALL));
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("б", ItemFilter.ALL));
+        assertNotNull(cache.get("а", ItemFilter.ALL));
+        assertNotNull(cache.get("в", ItemFilter.ALL));
+        assertNotNull(cache.get("г", ItemFilter.ALL));
+    }
+
+    @Test
+    void weightBoundEvictsAndSkipsOversizedResults() {
+        QueryCache cache = new QueryCache(100, 40);
+        cache.put("а", ItemFilter.ALL, items(10), cache.version(ItemFilter.ALL));
+        cache.put("б", ItemFilter.ALL, items(10), cache.version(ItemFilter.ALL));
+        cache.put("в", ItemFilter.ALL, items(10), cache.version(ItemFilter.ALL));
+        cache.put("г", ItemFilter.ALL, items(10), cache.version(ItemFilter.ALL));
+        assertEquals(4, cache.size());
+
+        cache.put("ґ", ItemFilter.ALL, items(5), cache.version(ItemFilter.ALL));
+        assertEquals(4, cache.size());
+        assertNull(cache.get("а", ItemFilter.ALL));
+
+        // A result over a quarter of the budget is returned but never cached.
+        List<LibraryItem> large = items(11);
+        assertEquals(11, cache.put("д", ItemFilter.ALL, large, cache.version(ItemFilter.ALL)).size());
+        assertNull(cache.get("д", ItemFilter.ALL));
+        assertNotNull(cache.get("б", ItemFilter.ALL));
+    }
+
+    @Test
+    void resultsComputedBeforeAChangeAreNotCached() {
+        LibraryManager manager = catalog();
+        QueryCache cache = manager.getQueryCache();
+        long seen = cache.version(ItemFilter.AVAILABLE);
+        manager.rent("D1", "Петро");
+
+        cache.put("мат", ItemFilter.AVAILABLE, items(1), seen);
+        assertNull(cache.get("мат", ItemFilter.AVAILABLE));
+
+        long fields = cache.version(ItemFilter.ALL);
+        manager.findById("M1").setYear(2024);
+        cache.put("мат", ItemFilter.ALL, items(1), fields);
+        assertNull(cache.get("мат", ItemFilter.ALL));
+    }
+}
@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeIndexTest {
+    @Test
+    void matchesAScanUnderRandomAddsAndRemoves() {
+        Random random = new Random(11);
+        RangeIndex index = new RangeIndex();
+        Map<Integer, Integer> keyOfSlot = new HashMap<>();
+        for (int step = 0; step < 40_000; step++) {
+            int slot = random.nextInt(5_000);
+            Integer key = keyOfSlot.get(slot);
+            if (key != null && random.nextInt(3) == 0) {
+                index.remove(key, slot);
+                keyOfSlot.remove(slot);
+            } else if (key == null) {
+                int value = random.nextInt(400) - 200;
+                index.add(value, slot);
+                keyOfSlot.put(slot, value);
+            }
+            if (step % 1_000 == 0) assertMatches(index, keyOfSlot, random);
+        }
+        assertMatches(index, keyOfSlot, random);
+        assertEquals(keyOfSlot.size(), index.size());
+    }
+
+    @Test
+    void bulkLoadMergesWithExistingEntries() {
+        RangeIndex index = new RangeIndex();
+        Map<Integer, Integer> keyOfSlot = new HashMap<>();
+        for (int slot = 0; slot < 100; slot++) {
+            index.add(slot % 10, slot);
+            keyOfSlot.put(slot, slot % 10);
+        }
+        int count = 20_000;
+        int[] keys = new int[count];
+        int[] slots = new int[count];
+        Random random = new Random(3);
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextInt(1_000);
+            slots[i] = 100 + i;
+            keyOfSlot.put(slots[i], keys[i]);
+        }
+        index.addAll(keys, slots, count);
+
+        assertEquals(keyOfSlot.size(), index.size());
+        assertMatches(index, keyOfSlot, random);
+        index.remove(keys[0], slots[0]);
+        keyOfSlot.remove(slots[0]);
+        assertMatches(index, keyOfSlot, random);
+    }
+
+    @Test
+    void handlesExtremeBounds() {
+        RangeIndex index = new RangeIndex();
+        index.add(Integer.MIN_VALUE, 0);
+        index.add(Integer.MAX_VALUE, 1);
+        index.add(0, Integer.MAX_VALUE);
+
+        assertEquals(3, index.count(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertArrayEquals(new int[]{0, Integer.MAX_VALUE, 1}, index.select(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(1, index.count(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertEquals(0, index.count(5, 4));
+    }
+
+    private static void assertMatches(RangeIndex index, Map<Integer, Integer> keyOfSlot, Random random) {
+        for (int i = 0; i < 50; i++) {
+            int from = random.nextInt(500) - 250;
+            int to = from + random.nextInt(120);
+            List<Integer> expected = new ArrayList<>();
+            keyOfSlot.forEach((slot, key) -> {
+                if (key >= from && key <= to) expected.add(slot);
+            });
+            Collections.sort(expected);
+            int[] selected = index.select(from, to);
+            Arrays.sort(selected);
+            assertEquals(expected.size(), index.count(from, to));
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), selected);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+    @Test
+    void candidatesAreLevelledBySharedTrigrams() {
+        SearchIndex<LibraryItem> index = new SearchIndex<>();
+        Book exact = new Book("B001", "Матриця", 1999, "Вачовскі", 136);
+        Book close = new Book("B002", "Матрац", 2001, "Хтось", 90);
+        Book other = new Book("B003", "Інтерстеллар", 2014, "Нолан", 169);
+        index.add(exact);
+        index.add(close);
+        index.add(other);
+        index.remove(other);
+
+        List<List<LibraryItem>> levels = index.candidates("матриця", 1);
+
+        assertEquals(6, levels.size());
+        assertEquals(List.of(exact), levels.get(5));
+        assertEquals(List.of(close), levels.get(2));
+        for (int shared : new int[]{ 0, 1, 3, 4 }) assertTrue(levels.get(shared).isEmpty());
+        assertTrue(index.candidates("матриця", 3).get(2).isEmpty());
+        assertTrue(index.candidates("інтерстеллар", 1).stream().allMatch(List::isEmpty));
+    }
+
+    private static Set<String> ids(List<? extends LibraryItem> items) {
+        return items.stream().map(LibraryItem::getId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void shortQueriesMatchAnywhereInAField() {
+        SearchIndex<LibraryItem> index = new SearchIndex<>();
+        index.add(new Book("B001", "Ніч", 2000, "Я", 100));
+        index.add(new Book("B002", "Дім у морі", 2020, "Клюн", 400));
+        index.add(new Magazine("M001", "Ми", 2021, 1, "Порт"));
+
+        assertEquals(Set.of("B001", "B002"), ids(index.search("і")));
+        assertEquals(Set.of("B001"), ids(index.search("ні")));
+        assertEquals(Set.of("B001"), ids(index.search("я")));
+        assertEquals(Set.of("M001"), ids(index.search("ми")));
+        assertEquals(Set.of("B002"), ids(index.search("м ")));
+        assertEquals(Set.of("B002"), ids(index.search("у")));
+        assertEquals(Set.of("B001", "B002", "M001"), ids(index.search("0")));
+        assertTrue(index.search("щ").isEmpty());
+    }
+
+    @Test
+    void cyrillicIsMatchedCaseInsensitively() {
+        SearchIndex<LibraryItem> index = new SearchIndex<>();
+        index.add(new Book("B001", "ЇЖАК І ҐАНОК", 2000, "Єва", 100));
+        index.add(new Book("B002", "Море", 2020, "Клюн", 400));
+
+        for (String query : List.of("їжак", "ЇЖАК", "Їж", "ї", "ґанок", "ҐА", "єва", "ЄВА", "є")) {
+            assertEquals(Set.of("B001"), ids(index.search(query)), query);
+        }
+        for (String query : List.of("МОРЕ", "мОрЕ", "ОР", "м")) {
+            assertEquals(Set.of("B002"), ids(index.search(query)), query);
+        }
+    }
+
+    @Test
+    void removedItemsLeaveNoShortMatches() {
+        SearchIndex<LibraryItem> index = new SearchIndex<>();
+        Book gone = new Book("B001", "Щука", 2000, "Автор", 100);
+        Book kept = new Book("B002", "Щит", 2000, "Автор", 100);
+        index.add(gone);
+        index.add(kept);
+        index.remove(gone);
+
+        assertTrue(index.search("ук").isEmpty());
+        assertTrue(index.search("ка").isEmpty());
+        assertEquals(Set.of("B002"), ids(index.search("щ")));
+        index.add(gone);
+        assertEquals(Set.of("B001"), ids(index.search("ук")));
+    }
+
+    @Test
+    void settersReindexTheItemInItsManager() {
+        LibraryManager manager = new LibraryManager();
+        manager.addItem(new Book("B001", "Хрещений батько", 1969, "Марио Пьюзо", 608));
+        manager.addItem(new DVD("D001", "Матриця", 1999, "Вачовскі", 136));
+        Book book = (Book) manager.findById("B001");
+
+        book.setTitle("Сицилієць");
+        book.setAuthor("Пьюзо М.");
+        assertEquals(Set.of("B001"), ids(manager.searchAll("сицил")));
+        assertEquals(Set.of("B001"), ids(manager.searchAll("ць")));
+        assertTrue(manager.searchAll("хрещ").isEmpty());
+        assertTrue(manager.searchAll("ще").isEmpty());
+        assertEquals(Set.of("B001"), ids(manager.searchAll("М.")));
+        assertTrue(manager.searchAll("марио").isEmpty());
+
+        ((DVD) manager.findById("D001")).setDirector("Вачовські");
+        assertEquals(Set.of("D001"), ids(manager.searchAll("ські", ItemFilter.DVDS)));
+        assertEquals(Set.of("B001", "D001"), ids(manager.searchAll("ц")));
+    }
+}
@@ -0,0 +1,187 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedLibraryTest {
+    private static final int SHARDS = 3;
+    private static final int ITEMS = 60;
+
+    private static List<LibraryManager> managers() {
+        List<LibraryManager> managers = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) managers.add(new LibraryManager());
+        return managers;
+    }
+
+    private static ShardedLibrary local(List<LibraryManager> managers) {
+        return new ShardedLibrary(managers.stream().map(LocalShardTransport::new).toList());
+    }
+
+    private static ShardedLibrary sockets(List<LibraryManager> managers, List<ShardServer> servers) throws IOException {
+        List<SocketShardTransport> transports = new ArrayList<>();
+        for (LibraryManager manager : managers) {
+            ShardServer server = new ShardServer(manager, 0);
+            server.start();
+            servers.add(server);
+            transports.add(new SocketShardTransport(server.getPort()));
+        }
+        return new ShardedLibrary(transports);
+    }
+
+    private static void closeAll(List<ShardServer> servers) throws IOException {
+        for (ShardServer server : servers) server.close();
+    }
+
+    private static List<String> fill(ShardedLibrary library) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            int n = i / 3;
+            LibraryItem item = switch (i % 3) {
+                case 0 -> new Book("B" + n, "Море " + n, 2000 + i % 5, "Автор", 100);
+                case 1 -> new Magazine("M" + n, "Вісник " + n, 2000 + i % 5, n, "Видавець");
+                default -> new DVD("D" + n, "Фільм " + n, 2000 + i % 5, "Режисер", 90);
+            };
+            assertTrue(library.addItem(item));
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+
+    private static void assertRoutesAndGathers(ShardedLibrary library, List<LibraryManager> managers) {
+        List<String> ids = fill(library);
+        assertFalse(library.addItem(new Book("B0", "Дублікат", 2001, "Автор", 1)));
+
+        for (String id : ids) {
+            int owner = library.shardOf(id);
+            for (int shard = 0; shard < SHARDS; shard++) {
+                assertEquals(shard == owner, managers.get(shard).findById(id) != null, id + " on shard " + shard);
+            }
+            assertEquals(id, library.findById(id).getId());
+        }
+        assertTrue(managers.stream().allMatch(manager -> manager.getTotalCount() > 0));
+
+        assertEquals(ids.stream().sorted().toList(), library.searchAll("").stream().map(LibraryItem::getId).sorted().toList());
+        assertEquals(ITEMS / 3, library.searchAll("море").size());
+        assertEquals(ITEMS / 3, library.searchAll("", ItemFilter.DVDS).size());
+
+        assertTrue(library.rent("B3", "Олена"));
+        assertTrue(library.rent("M4", "Олена"));
+        assertTrue(library.rent("D5", "Петро"));
+        assertFalse(library.rent("B3", "Петро"));
+        assertEquals(List.of("B3"), library.searchAll("море", ItemFilter.RENTED).stream().map(LibraryItem::getId).toList());
+        LibraryStats stats = library.getStatistics();
+        assertEquals(ITEMS, stats.total());
+        assertEquals(ITEMS / 3, stats.books());
+        assertEquals(3, stats.rented());
+        assertEquals(2, stats.rentalsByUser().get("Олена"));
+        assertEquals(1, stats.rentalsByUser().get("Петро"));
+        assertEquals(ITEMS / 5, stats.itemsByYear().get(2000));
+
+        assertTrue(library.returnItem("B3"));
+        assertFalse(library.returnItem("B3"));
+        assertTrue(library.removeItem("B3"));
+        assertFalse(library.removeItem("D5"));
+        assertNull(library.findById("B3"));
+        assertEquals(ITEMS - 1, library.getStatistics().total());
+    }
+
+    // Every thread tries to rent every item; each item must go to exactly one of them.
+    private static void assertSingleWinnerPerItem(ShardedLibrary library, List<LibraryManager> managers) throws InterruptedException {
+        List<String> ids = fill(library);
+        int threads = 8;
+        ConcurrentHashMap<String, String> winners = new ConcurrentHashMap<>();
+        AtomicInteger doubleRents = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String user = "u" + t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (String id : ids) {
+                    if (library.rent(id, user) && winners.putIfAbsent(id, user) != null) doubleRents.incrementAndGet();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+
+        assertEquals(0, doubleRents.get());
+        assertEquals(ITEMS, winners.size());
+        assertEquals(ITEMS, library.getStatistics().rented());
+        assertEquals(ITEMS, managers.stream().mapToInt(LibraryManager::getRentedCount).sum());
+        for (String id : ids) {
+            assertEquals(winners.get(id), managers.get(library.shardOf(id)).findById(id).getLoan().user(), id);
+        }
+    }
+
+    @Test
+    void inProcessShardsRouteByIdAndGatherSearches() {
+        List<LibraryManager> managers = managers();
+        try (ShardedLibrary library = local(managers)) {
+            assertRoutesAndGathers(library, managers);
+        }
+    }
+
+    @Test
+    void socketShardsRouteByIdAndGatherSearches() throws IOException {
+        List<LibraryManager> managers = managers();
+        List<ShardServer> servers = new ArrayList<>();
+        try (ShardedLibrary library = sockets(managers, servers)) {
+            assertRoutesAndGathers(library, managers);
+        } finally {
+            closeAll(servers);
+        }
+    }
+
+    @Test
+    void concurrentRentsOfTheSameItemHaveOneWinnerInProcess() throws InterruptedException {
+        List<LibraryManager> managers = managers();
+        try (ShardedLibrary library = local(managers)) {
+            assertSingleWinnerPerItem(library, managers);
+        }
+    }
+
+    @Test
+    void concurrentRentsOfTheSameItemHaveOneWinnerOverSockets() throws Exception {
+        List<LibraryManager> managers = managers();
+        List<ShardServer> servers = new ArrayList<>();
+        try (ShardedLibrary library = sockets(managers, servers)) {
+            assertSingleWinnerPerItem(library, managers);
+        } finally {
+            closeAll(servers);
+        }
+    }
+
+    @Test
+    void findByIdOverSocketsReturnsADetachedCopy() throws IOException {
+        List<LibraryManager> managers = managers();
+        List<ShardServer> servers = new ArrayList<>();
+        try (ShardedLibrary library = sockets(managers, servers)) {
+            library.addItem(new Book("B1", "Море", 2000, "Автор", 100));
+            LibraryItem live = managers.get(library.shardOf("B1")).findById("B1");
+
+            LibraryItem copy = library.findById("B1");
+            assertNotSame(live, copy);
+            assertArrayEquals(live.toTableRow(), copy.toTableRow());
+            copy.setTitle("Змінена копія");
+            assertEquals("Море", live.getTitle());
+            assertEquals("Море", library.findById("B1").getTitle());
+
+            assertTrue(library.rent("B1", "Олена"));
+            assertTrue(copy.isAvailable());
+            assertEquals("Олена", library.findById("B1").getLoan().user());
+        } finally {
+            closeAll(servers);
+        }
+    }
+}